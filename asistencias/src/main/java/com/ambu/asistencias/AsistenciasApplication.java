@@ -2,8 +2,10 @@ package com.ambu.asistencias;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
 
 @SpringBootApplication
+@PropertySource("classpath:asistencias-defaults.properties")
 public class AsistenciasApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,114 @@
+package com.ambu.asistencias.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * BCrypt en un pool acotado en lugar de los hilos de Tomcat.
+ *
+ * Cada {@code encode} y {@code matches} corre en uno de los {@code app.security.bcrypt.workers}
+ * hilos con una cola de {@code app.security.bcrypt.queue-capacity}; si el pool está saturado, como
+ * en una ráfaga de logins o un intento de fuerza bruta, se lanza {@link RejectedExecutionException}
+ * de inmediato (503) y los hilos que atienden asistencias quedan libres.
+ *
+ * {@link #upgradeEncoding(String)} marca los hashes cuyo costo no es
+ * {@code app.security.bcrypt.strength}, así que cambiar el costo rehace el hash de cada usuario en
+ * su siguiente login exitoso.
+ */
+@Component
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int strength;
+
+    @Value("${app.security.bcrypt.workers:2}")
+    private int workers;
+
+    @Value("${app.security.bcrypt.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.security.bcrypt.timeout-seconds:5}")
+    private long timeoutSeconds;
+
+    private BCryptPasswordEncoder delegate;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        delegate = new BCryptPasswordEncoder(strength);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> result = executor.submit(task);
+        try {
+            return result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la verificación de credenciales", e);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            log.warn("La verificación de credenciales excedió {} s", timeoutSeconds);
+            throw new RejectedExecutionException("La verificación de credenciales excedió el tiempo límite", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error verificando credenciales", e.getCause());
+        }
+    }
+}
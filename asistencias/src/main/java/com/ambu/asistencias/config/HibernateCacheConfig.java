@@ -0,0 +1,97 @@
+package com.ambu.asistencias.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché de segundo nivel de Hibernate para las entidades de referencia que se leen en cada
+ * registro de asistencia: {@code SocialServer} (por id y por correo, su natural id) y {@code Park}.
+ *
+ * Cada región es un caché Caffeine con tamaño máximo y TTL propios
+ * ({@code app.cache.<region>.max-entries} y {@code app.cache.<region>.ttl-minutes}). Las
+ * estadísticas de Hibernate se publican como métricas {@code hibernate.second.level.cache.*} por
+ * región.
+ *
+ * El caché es local a cada instancia. Un cambio hecho por esta instancia actualiza su caché al
+ * confirmarse, pero las demás siguen sirviendo su copia hasta que vence el TTL, igual que con un
+ * cambio hecho fuera de la aplicación. Además, un fallo de caché en una transacción de sólo lectura
+ * carga la fila de la réplica, que puede ir atrasada hasta el umbral de {@link ReplicaLagMonitor}:
+ * si la fila acababa de cambiar o eliminarse, la copia vieja queda en caché hasta que vence. Por eso
+ * los TTL son cortos (5 minutos para servidores sociales, 10 para parques) y el registro de
+ * asistencias busca con {@link ReplicaRoutingDataSource#usePrimary(java.util.function.Supplier)},
+ * así que sus fallos de caché cargan la fila del primario.
+ */
+@Configuration
+@Slf4j
+public class HibernateCacheConfig {
+
+    public static final String SOCIAL_SERVERS_REGION = "socialServers";
+    public static final String SOCIAL_SERVER_EMAILS_REGION = "socialServerEmails";
+    public static final String PARKS_REGION = "parks";
+
+    @Value("${app.cache.social-servers.max-entries:10000}")
+    private long socialServersMaxEntries;
+
+    @Value("${app.cache.social-servers.ttl-minutes:5}")
+    private long socialServersTtlMinutes;
+
+    @Value("${app.cache.social-server-emails.max-entries:10000}")
+    private long socialServerEmailsMaxEntries;
+
+    @Value("${app.cache.social-server-emails.ttl-minutes:5}")
+    private long socialServerEmailsTtlMinutes;
+
+    @Value("${app.cache.parks.max-entries:1000}")
+    private long parksMaxEntries;
+
+    @Value("${app.cache.parks.ttl-minutes:10}")
+    private long parksTtlMinutes;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // Un administrador por contexto: las regiones no se comparten entre contextos de la misma JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("asistencias-" + UUID.randomUUID()), getClass().getClassLoader());
+        createRegion(cacheManager, SOCIAL_SERVERS_REGION, socialServersMaxEntries, socialServersTtlMinutes);
+        createRegion(cacheManager, SOCIAL_SERVER_EMAILS_REGION, socialServerEmailsMaxEntries, socialServerEmailsTtlMinutes);
+        createRegion(cacheManager, PARKS_REGION, parksMaxEntries, parksTtlMinutes);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Una región sin configurar es un error, no un caché sin límites
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private void createRegion(CacheManager cacheManager, String region, long maxEntries, long ttlMinutes) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofMinutes(ttlMinutes).toNanos()));
+        cacheManager.createCache(region, configuration);
+        log.info("Región de caché {}: máximo {} entradas, TTL {} min", region, maxEntries, ttlMinutes);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ambu.asistencias.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts en lotes JDBC para el registro de lotes de asistencias desde kioscos: Hibernate agrupa
+ * hasta {@link #BATCH_SIZE} inserts por sentencia y el driver de MySQL los reescribe como un solo
+ * INSERT de varias filas. Los valores de {@code spring.jpa.properties.hibernate.*} tienen prioridad.
+ */
+@Configuration
+@Slf4j
+public class JdbcBatchingConfig {
+
+    private static final int BATCH_SIZE = 50;
+    private static final String REWRITE_BATCHED_STATEMENTS = "rewriteBatchedStatements";
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, BATCH_SIZE);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+        };
+    }
+
+    /**
+     * Activa {@code rewriteBatchedStatements} en los pools de MySQL (primario y réplica). Sólo ahí:
+     * otros drivers, como el de H2, rechazan propiedades de conexión que no conocen.
+     */
+    @Bean
+    public static BeanPostProcessor mysqlBatchRewritePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && isMySql(dataSource.getJdbcUrl())
+                        && !dataSource.getJdbcUrl().contains(REWRITE_BATCHED_STATEMENTS)
+                        && !dataSource.getDataSourceProperties().containsKey(REWRITE_BATCHED_STATEMENTS)) {
+                    dataSource.addDataSourceProperty(REWRITE_BATCHED_STATEMENTS, "true");
+                    log.debug("rewriteBatchedStatements activado en el pool {}", beanName);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean isMySql(String jdbcUrl) {
+        return jdbcUrl != null && DatabaseDriver.fromJdbcUrl(jdbcUrl) == DatabaseDriver.MYSQL;
+    }
+}
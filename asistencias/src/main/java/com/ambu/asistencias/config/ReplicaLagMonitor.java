@@ -0,0 +1,123 @@
+package com.ambu.asistencias.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mide cada {@code checkSeconds} el atraso de la réplica y decide si puede atender lecturas.
+ *
+ * {@code lagQuery} debe devolver el atraso en segundos en la columna {@code lagColumn}; con MySQL
+ * es {@code SHOW REPLICA STATUS} / {@code Seconds_Behind_Source}. Sin filas el servidor no es una
+ * réplica y se considera al día; un valor nulo (replicación detenida), un error o un atraso mayor
+ * a {@code maxLagSeconds} la dejan fuera hasta la siguiente medición correcta. Con
+ * {@code lagQuery} vacío no se mide y la réplica siempre está disponible.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final long checkSeconds;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = Double.NaN;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds,
+                             long checkSeconds, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkSeconds = checkSeconds;
+
+        Gauge.builder("datasource.replica.lag.seconds", this, monitor -> monitor.lagSeconds)
+                .description("Atraso medido de la réplica de lectura").register(meterRegistry);
+        Gauge.builder("datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("1 si las lecturas se envían a la réplica").register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, checkSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Saca a la réplica de la rotación hasta la siguiente medición, p. ej. si no entregó conexión.
+     */
+    public void markUnavailable(Exception cause) {
+        if (available) {
+            log.warn("Réplica fuera de rotación: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    /**
+     * Mide el atraso ahora.
+     */
+    public void refresh() {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            lagSeconds = 0;
+            setAvailable(true);
+            return;
+        }
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                lagSeconds = 0;
+                setAvailable(true);
+                return;
+            }
+            long lag = rs.getLong(lagColumn);
+            if (rs.wasNull()) {
+                lagSeconds = Double.NaN;
+                log.warn("La réplica no reporta atraso; la replicación parece detenida");
+                setAvailable(false);
+                return;
+            }
+            lagSeconds = lag;
+            if (lag > maxLagSeconds) {
+                log.warn("Réplica atrasada {} s (máximo {} s), las lecturas van al primario", lag, maxLagSeconds);
+            }
+            setAvailable(lag <= maxLagSeconds);
+        } catch (SQLException | RuntimeException e) {
+            lagSeconds = Double.NaN;
+            markUnavailable(e);
+        }
+    }
+
+    private void setAvailable(boolean value) {
+        if (value && !available) {
+            log.info("Réplica disponible para lecturas");
+        }
+        available = value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ambu.asistencias.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envía las transacciones {@code readOnly} a la réplica y todo lo demás al primario.
+ *
+ * La decisión se toma al pedir la conexión, así que debe usarse detrás de un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: la conexión real se
+ * obtiene con la primera sentencia, cuando la transacción ya está marcada como de sólo lectura.
+ * Si la réplica está atrasada según {@link ReplicaLagMonitor} o no entrega conexión, la lectura va
+ * al primario.
+ *
+ * Las lecturas que no toleran atraso (llenar un caché justo después de invalidarlo, verificar una
+ * llave de idempotencia) se envuelven en {@link #usePrimary(Supplier)}. Sin réplica configurada
+ * esa llamada no tiene efecto.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.primary = primary;
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Ejecuta {@code action} leyendo siempre del primario, aunque abra transacciones de sólo lectura.
+     */
+    public static <T> T usePrimary(Supplier<T> action) {
+        if (Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+            return action.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (Boolean.TRUE.equals(FORCE_PRIMARY.get())
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !lagMonitor.isAvailable()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection();
+        }
+        try {
+            return determineTargetDataSource().getConnection();
+        } catch (SQLException e) {
+            lagMonitor.markUnavailable(e);
+            log.warn("Réplica sin conexión, la lectura se envía al primario: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
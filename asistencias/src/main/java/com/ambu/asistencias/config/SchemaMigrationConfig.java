@@ -0,0 +1,68 @@
+package com.ambu.asistencias.config;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.api.Location;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * El esquema lo crean y evolucionan las migraciones de Flyway en {@code db/migration}; Hibernate
+ * sólo lo valida al arrancar.
+ *
+ * Lo que depende del motor (el generador de ids de {@code attendances}) vive en
+ * {@code db/vendor/<motor>}, que se agrega a las ubicaciones según la base de datos conectada.
+ * Una base creada antes por {@code ddl-auto=create} se toma como versión 1.1 y sólo recibe las
+ * migraciones posteriores.
+ */
+@Configuration
+@Slf4j
+public class SchemaMigrationConfig {
+
+    private static final String BASELINE_VERSION = "1.1";
+    private static final String VENDOR_LOCATION = "classpath:db/vendor/";
+
+    @Bean
+    public FlywayConfigurationCustomizer vendorMigrationsCustomizer() {
+        return configuration -> {
+            List<Location> locations = new ArrayList<>(Arrays.asList(configuration.getLocations()));
+            locations.add(new Location(VENDOR_LOCATION + vendorOf(configuration.getDataSource())));
+            configuration.locations(locations.toArray(Location[]::new))
+                    .baselineOnMigrate(true)
+                    .baselineVersion(BASELINE_VERSION);
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer schemaValidationCustomizer() {
+        return properties -> {
+            Object configured = properties.get(AvailableSettings.HBM2DDL_AUTO);
+            if (configured != null && !"validate".equals(configured.toString())) {
+                log.warn("Se ignora spring.jpa.hibernate.ddl-auto={}: el esquema lo administra Flyway", configured);
+            }
+            properties.put(AvailableSettings.HBM2DDL_AUTO, "validate");
+        };
+    }
+
+    private String vendorOf(DataSource dataSource) {
+        try {
+            String url = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getURL);
+            return DatabaseDriver.fromJdbcUrl(url).getId();
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("No se pudo determinar el motor de base de datos", e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.ambu.asistencias.config;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.ambu.asistencias.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Control de admisión para el registro público de asistencias ({@code POST /asistencias} y
+ * {@code POST /asistencias/lote}).
+ *
+ * Cada petición toma un token del bucket de su IP y otro del bucket de su parque; después ocupa uno
+ * de los {@code app.ratelimit.max-in-flight-uploads} lugares de subida. Si algo falla se responde 429
+ * con {@code Retry-After} sin leer el cuerpo multipart. Un lote trae hasta
+ * {@code app.attendance.batch.max-items} asistencias, así que por IP toma su token de un bucket
+ * propio ({@code app.ratelimit.batch.*}) y no del de las subidas individuales.
+ *
+ * El parque se toma del header {@code X-Park-Id} o del parámetro {@code parkId} de la URL, nunca del
+ * formulario. Las peticiones que no lo traen comparten un mismo bucket de parque, así que omitirlo
+ * no evita el límite. Cada mapa de buckets guarda a lo más {@code app.ratelimit.max-tracked-clients}
+ * claves y descarta la usada hace más tiempo.
+ *
+ * Corre justo después de la cadena de Spring Security para que los 429 lleven los headers CORS.
+ * Detrás de un proxy la IP del cliente requiere {@code server.forward-headers-strategy}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class UploadRateLimitFilter extends OncePerRequestFilter {
+
+    public static final String PARK_HEADER = "X-Park-Id";
+
+    // Bucket de parque de las peticiones que no lo identifican
+    private static final String UNKNOWN_PARK = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, TokenBucket> ipBuckets;
+    private Map<String, TokenBucket> batchBuckets;
+    private Map<String, TokenBucket> parkBuckets;
+
+    @Value("${api.prefix:/api}")
+    private String apiPrefix;
+
+    @Value("${app.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ratelimit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${app.ratelimit.ip.refill-per-minute:60}")
+    private int ipRefillPerMinute;
+
+    @Value("${app.ratelimit.batch.capacity:2}")
+    private int batchCapacity;
+
+    @Value("${app.ratelimit.batch.refill-per-minute:1}")
+    private int batchRefillPerMinute;
+
+    @Value("${app.ratelimit.park.capacity:120}")
+    private int parkCapacity;
+
+    @Value("${app.ratelimit.park.refill-per-minute:600}")
+    private int parkRefillPerMinute;
+
+    @Value("${app.ratelimit.max-in-flight-uploads:32}")
+    private int maxInFlightUploads;
+
+    @Value("${app.ratelimit.max-tracked-clients:10000}")
+    private int maxTrackedClients;
+
+    private Semaphore inFlight;
+    private Counter ipRejections;
+    private Counter parkRejections;
+    private Counter concurrencyRejections;
+
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxInFlightUploads);
+        ipBuckets = boundedBuckets();
+        batchBuckets = boundedBuckets();
+        parkBuckets = boundedBuckets();
+
+        Gauge.builder("attendance.uploads.in_flight", inFlight, permits -> maxInFlightUploads - permits.availablePermits())
+                .description("Subidas de asistencias en curso").register(meterRegistry);
+        Gauge.builder("attendance.uploads.in_flight.limit", () -> maxInFlightUploads).register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.capacity", () -> ipCapacity).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.refill_per_minute", () -> ipRefillPerMinute).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.capacity", () -> batchCapacity).tag("key", "batch").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.refill_per_minute", () -> batchRefillPerMinute).tag("key", "batch").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.capacity", () -> parkCapacity).tag("key", "park").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.refill_per_minute", () -> parkRefillPerMinute).tag("key", "park").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.tracked", ipBuckets, Map::size).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.tracked", batchBuckets, Map::size).tag("key", "batch").register(meterRegistry);
+        Gauge.builder("attendance.ratelimit.tracked", parkBuckets, Map::size).tag("key", "park").register(meterRegistry);
+
+        ipRejections = rejectionCounter("ip");
+        parkRejections = rejectionCounter("park");
+        concurrencyRejections = rejectionCounter("concurrency");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = pathOf(request);
+        return !path.equals(apiPrefix + "/asistencias") && !isBatch(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long now = System.nanoTime();
+        String clientIp = request.getRemoteAddr();
+        TokenBucket clientBucket = isBatch(request)
+                ? bucketFor(batchBuckets, clientIp, batchCapacity, batchRefillPerMinute, now)
+                : bucketFor(ipBuckets, clientIp, ipCapacity, ipRefillPerMinute, now);
+        long waitNanos = clientBucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            reject(response, waitNanos, "Demasiadas solicitudes desde este dispositivo");
+            return;
+        }
+
+        String parkId = parkIdOf(request);
+        String parkKey = parkId != null ? parkId : UNKNOWN_PARK;
+        waitNanos = bucketFor(parkBuckets, parkKey, parkCapacity, parkRefillPerMinute, now).tryAcquire(now);
+        if (waitNanos > 0) {
+            parkRejections.increment();
+            reject(response, waitNanos, "Demasiadas solicitudes para este parque");
+            return;
+        }
+
+        if (!inFlight.tryAcquire()) {
+            concurrencyRejections.increment();
+            reject(response, TimeUnit.SECONDS.toNanos(1), "El servidor está ocupado");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private TokenBucket bucketFor(Map<String, TokenBucket> buckets, String key, int capacity, int refillPerMinute, long now) {
+        synchronized (buckets) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new TokenBucket(capacity, refillPerMinute, now);
+                buckets.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * LRU con tope duro: una ráfaga de IPs distintas desplaza a los buckets menos usados en lugar de
+     * hacer crecer el mapa. Un bucket descartado vuelve a empezar lleno.
+     */
+    private Map<String, TokenBucket> boundedBuckets() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxTrackedClients;
+            }
+        });
+    }
+
+    private boolean isBatch(HttpServletRequest request) {
+        return pathOf(request).equals(apiPrefix + "/asistencias/lote");
+    }
+
+    private String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Parque de la petición sin leer el cuerpo: {@code getParameter} haría que el contenedor
+     * procesara el multipart completo.
+     */
+    private String parkIdOf(HttpServletRequest request) {
+        String parkId = request.getHeader(PARK_HEADER);
+        if (parkId == null && request.getQueryString() != null) {
+            parkId = UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                    .getQueryParams().getFirst("parkId");
+        }
+        if (parkId == null) {
+            return null;
+        }
+        try {
+            return Long.toString(Long.parseLong(parkId.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos, String reason) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.debug("Subida rechazada: {}; reintentar en {} s", reason, retryAfterSeconds);
+
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .message(reason + ", intente de nuevo en " + retryAfterSeconds + " segundos")
+                .build();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder("attendance.ratelimit.rejected")
+                .description("Subidas de asistencias rechazadas con 429")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bucket de tokens con recarga continua.
+     */
+    static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int refillPerMinute, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        /**
+         * Toma un token; devuelve 0 si lo consiguió o los nanosegundos que faltan para el siguiente.
+         */
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
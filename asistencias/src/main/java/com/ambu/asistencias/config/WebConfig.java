@@ -1,6 +1,8 @@
 package com.ambu.asistencias.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
 
 /**
  * WebConfig - CORS is now handled in SecurityConfig
@@ -9,4 +11,16 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class WebConfig {
     // CORS configuration has been moved to SecurityConfig to work properly with Spring Security
-}
\ No newline at end of file
+
+    /**
+     * Multipart perezoso: el contenedor sólo procesa el cuerpo cuando un controlador pide sus
+     * partes. {@code POST /asistencias} lo lee en streaming sin pedirlas; el resto de los
+     * endpoints multipart siguen usando el contenedor ({@code spring.servlet.multipart.*}).
+     */
+    @Bean
+    public StandardServletMultipartResolver multipartResolver() {
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver();
+        resolver.setResolveLazily(true);
+        return resolver;
+    }
+}
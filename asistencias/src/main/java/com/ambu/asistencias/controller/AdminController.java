@@ -1,25 +1,40 @@
 package com.ambu.asistencias.controller;
 
+import com.ambu.asistencias.dto.AttendanceArchiveResponse;
+import com.ambu.asistencias.dto.HoursRebuildResponse;
+import com.ambu.asistencias.dto.ParkDailyStatsResponse;
+import com.ambu.asistencias.dto.ParkPresenceResponse;
+import com.ambu.asistencias.dto.PhotoCleanupResponse;
+import com.ambu.asistencias.dto.PhotoMigrationResponse;
+import com.ambu.asistencias.dto.StatsBackfillResponse;
 import com.ambu.asistencias.dto.UserRequest;
 import com.ambu.asistencias.dto.UserResponse;
-import com.ambu.asistencias.exception.ResourceNotFoundException;
+import com.ambu.asistencias.service.AttendanceArchiveService;
+import com.ambu.asistencias.service.AttendanceStreamService;
+import com.ambu.asistencias.service.ParkStatsService;
+import com.ambu.asistencias.service.PhotoDeliveryService;
+import com.ambu.asistencias.service.PhotoDerivativeService;
+import com.ambu.asistencias.service.PhotoDerivativeService.PhotoSize;
+import com.ambu.asistencias.service.PhotoStoreService;
+import com.ambu.asistencias.service.PresenceRegistry;
+import com.ambu.asistencias.service.ServiceHoursService;
 import com.ambu.asistencias.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -27,8 +42,13 @@ import java.util.List;
  * 
  * Este controlador maneja operaciones administrativas que no son CRUD estándar:
  * - Gestión de usuarios (solo SUPER_ADMIN)
- * - Acceso a fotos de asistencias
- * - Futuros: reportes, estadísticas, etc.
+ * - Acceso a fotos de asistencias y mantenimiento del almacén de fotos
+ * - Presencia en tiempo real por parque
+ * - Stream en vivo de asistencias registradas
+ * - Recálculo del ledger de horas de servicio
+ * - Estadísticas diarias por parque
+ * - Archivado de asistencias de semestres cerrados
+ * - Futuros: reportes, etc.
  */
 @RestController
 @RequestMapping("${api.prefix}/admin")
@@ -38,64 +58,140 @@ import java.util.List;
 public class AdminController {
 
     private final UserService userService;
-
-    @Value("${app.upload.dir:uploads/photos}")
-    private String uploadDir;
+    private final ServiceHoursService serviceHoursService;
+    private final ParkStatsService parkStatsService;
+    private final PresenceRegistry presenceRegistry;
+    private final AttendanceStreamService attendanceStreamService;
+    private final PhotoDerivativeService photoDerivativeService;
+    private final PhotoStoreService photoStoreService;
+    private final PhotoDeliveryService photoDeliveryService;
+    private final AttendanceArchiveService attendanceArchiveService;
 
     /**
      * Obtiene una foto de asistencia
-     * GET /api/admin/photos/{path}
+     * GET /api/admin/photos/{path}?size=thumb|medium|full
+     * thumb y medium son versiones reducidas (unos KB) pensadas para listas y vistas de detalle;
+     * full (por defecto) es el archivo original. Soporta Range, ETag/If-None-Match y
+     * Last-Modified/If-Modified-Since (304); las fotos se marcan como cacheables e inmutables
      */
     @GetMapping("/photos/**")
-    public ResponseEntity<Resource> getPhoto(HttpServletRequest request) {
-        try {
-            String requestPath = request.getRequestURI();
-            // Extract path after /photos/
-            String photoPath = requestPath.substring(requestPath.indexOf("/photos/") + "/photos/".length());
-            
-            log.info("Solicitando foto. Request path: {}, Extracted path: {}", requestPath, photoPath);
-            
-            // The photoPath from database is stored as "uploads/photos/filename"
-            // We need to resolve it from the project root
-            Path basePath = Paths.get(System.getProperty("user.dir"));
-            Path filePath = basePath.resolve(photoPath).normalize();
-            
-            // Security check: ensure the path is within the uploads directory
-            Path uploadsPath = basePath.resolve("uploads/photos").normalize();
-            if (!filePath.startsWith(uploadsPath)) {
-                log.warn("Intento de acceso a ruta fuera del directorio permitido: {}", filePath);
-                throw new ResourceNotFoundException("Ruta de foto no permitida");
-            }
-            
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = "application/octet-stream";
-                String filename = resource.getFilename();
-                if (filename != null) {
-                    if (filename.toLowerCase().endsWith(".png")) {
-                        contentType = "image/png";
-                    } else if (filename.toLowerCase().endsWith(".jpg") || filename.toLowerCase().endsWith(".jpeg")) {
-                        contentType = "image/jpeg";
-                    } else if (filename.toLowerCase().endsWith(".gif")) {
-                        contentType = "image/gif";
-                    }
-                }
-                
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                        .body(resource);
-            } else {
-                log.warn("Foto no encontrada o no accesible: {}", filePath);
-                throw new ResourceNotFoundException("Foto no encontrada: " + photoPath);
-            }
-        } catch (ResourceNotFoundException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error al obtener la foto", e);
-            throw new ResourceNotFoundException("Error al obtener la foto: " + e.getMessage());
-        }
+    public void getPhoto(HttpServletRequest request, HttpServletResponse response,
+            @RequestParam(defaultValue = "full") String size) throws IOException {
+        PhotoSize photoSize = PhotoSize.from(size);
+        String requestPath = request.getRequestURI();
+        // Extract path after /photos/
+        String photoPath = requestPath.substring(requestPath.indexOf("/photos/") + "/photos/".length());
+        
+        log.debug("Solicitando foto. Request path: {}, Extracted path: {}, size: {}", requestPath, photoPath, photoSize);
+        
+        // The photoPath from database is stored as "uploads/photos/ab/cd/<hash>.jpg"; the service
+        // resolves it from the project root and checks it stays inside the uploads directory
+        Path filePath = photoDerivativeService.resolve(photoPath, photoSize);
+        photoDeliveryService.send(filePath, request, response);
+    }
+
+    /**
+     * Stream (Server-Sent Events) de las asistencias que se van registrando
+     * GET /api/admin/asistencias/stream?parkId=
+     * Eventos: "attendance" con la asistencia, "resync" si el cliente debe recargar la lista
+     * y "heartbeat" periódico para mantener viva la conexión
+     * Sólo incluye las asistencias registradas por la instancia que atiende la conexión
+     */
+    @GetMapping(value = "/asistencias/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAttendances(@RequestParam(required = false) Long parkId) {
+        log.info("Suscripción al stream de asistencias para parque: {}", parkId);
+        return attendanceStreamService.subscribe(parkId);
+    }
+
+    /**
+     * Servidores sociales presentes en este momento, agrupados por parque
+     * GET /api/admin/presence
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<List<ParkPresenceResponse>> getPresence() {
+        return ResponseEntity.ok(presenceRegistry.getAllPresence());
+    }
+
+    /**
+     * Servidores sociales presentes en este momento en un parque
+     * GET /api/admin/presence/{parkId}
+     */
+    @GetMapping("/presence/{parkId}")
+    public ResponseEntity<ParkPresenceResponse> getParkPresence(@PathVariable Long parkId) {
+        return ResponseEntity.ok(presenceRegistry.getParkPresence(parkId));
+    }
+
+    /**
+     * Recalcula el ledger de horas de servicio a partir de todas las asistencias
+     * POST /api/admin/horas/recalcular
+     */
+    @PostMapping("/horas/recalcular")
+    public ResponseEntity<HoursRebuildResponse> rebuildServiceHours() {
+        log.info("Solicitud de recálculo de horas de servicio");
+        HoursRebuildResponse response = serviceHoursService.rebuildAll();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Estadísticas diarias por parque para el dashboard, leídas de las tablas agregadas
+     * GET /api/admin/estadisticas/parques?from=&to=&parkId=
+     * Por defecto devuelve los últimos 30 días de todos los parques
+     */
+    @GetMapping("/estadisticas/parques")
+    public ResponseEntity<List<ParkDailyStatsResponse>> getParkDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long parkId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        log.info("Solicitud de estadísticas diarias de parques del {} al {}", start, end);
+        List<ParkDailyStatsResponse> response = parkStatsService.getDailyStats(start, end, parkId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reconstruye las estadísticas diarias por parque a partir de todas las asistencias
+     * POST /api/admin/estadisticas/recalcular
+     */
+    @PostMapping("/estadisticas/recalcular")
+    public ResponseEntity<StatsBackfillResponse> backfillParkStats() {
+        log.info("Solicitud de reconstrucción de estadísticas diarias");
+        StatsBackfillResponse response = parkStatsService.backfill();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Mueve las fotos guardadas con el esquema anterior al almacén direccionado por contenido
+     * POST /api/admin/fotos/migrar
+     */
+    @PostMapping("/fotos/migrar")
+    public ResponseEntity<PhotoMigrationResponse> migratePhotos() {
+        log.info("Solicitud de migración de fotos al almacén por contenido");
+        PhotoMigrationResponse response = photoStoreService.migrateLegacyPhotos();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Elimina del almacén las fotos que ya no usa ninguna asistencia
+     * POST /api/admin/fotos/limpiar
+     */
+    @PostMapping("/fotos/limpiar")
+    public ResponseEntity<PhotoCleanupResponse> cleanupPhotos() {
+        log.info("Solicitud de limpieza del almacén de fotos");
+        PhotoCleanupResponse response = photoStoreService.collectGarbage();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Mueve al archivo las asistencias de los semestres cerrados
+     * POST /api/admin/asistencias/archivar
+     * Se consultan después con GET /api/asistencias/archivo/export
+     */
+    @PostMapping("/asistencias/archivar")
+    public ResponseEntity<AttendanceArchiveResponse> archiveAttendances() {
+        log.info("Solicitud de archivado de asistencias");
+        AttendanceArchiveResponse response = attendanceArchiveService.archiveClosedSemesters();
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -1,7 +1,9 @@
 package com.ambu.asistencias.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,16 +12,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ambu.asistencias.dto.AttendanceBatchItem;
+import com.ambu.asistencias.dto.AttendanceBatchResponse;
+import com.ambu.asistencias.dto.AttendanceFilter;
+import com.ambu.asistencias.dto.AttendancePageResponse;
 import com.ambu.asistencias.dto.AttendanceResponse;
-import com.ambu.asistencias.dto.AttendanceRequest;
+import com.ambu.asistencias.service.AttendanceExportService;
+import com.ambu.asistencias.service.AttendanceExportService.ExportFormat;
 import com.ambu.asistencias.service.AttendanceService;
+import com.ambu.asistencias.service.AttendanceUploadService;
 
-import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,15 +41,64 @@ import lombok.extern.slf4j.Slf4j;
 public class AttendanceController {
 
     private final AttendanceService attendanceService;
+    private final AttendanceExportService attendanceExportService;
+    private final AttendanceUploadService attendanceUploadService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<List<AttendanceResponse>> getAllAttendances() {
-        log.info("Solicitud de listado de asistencias recibida");
-        List<AttendanceResponse> response = attendanceService.getAllAttendances();
+    public ResponseEntity<AttendancePageResponse> getAttendances(@ModelAttribute AttendanceFilter filter) {
+        log.info("Solicitud de listado de asistencias recibida con filtro: {}", filter);
+        AttendancePageResponse response = attendanceService.getAttendances(filter);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Exporta las asistencias filtradas como CSV o NDJSON.
+     * GET /api/asistencias/export?format=csv|ndjson&socialServerId=&parkId=&type=&from=&to=
+     * Las filas se escriben conforme se leen de la base de datos.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAttendances(
+            @ModelAttribute AttendanceFilter filter,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+        log.info("Solicitud de exportación de asistencias en formato {}", exportFormat);
+        filter.validate();
+
+        StreamingResponseBody body = outputStream -> attendanceExportService.export(filter, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"asistencias." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Exporta las asistencias de semestres archivados, para reportes históricos.
+     * GET /api/asistencias/archivo/export?format=csv|ndjson&socialServerId=&parkId=&type=&from=&to=
+     * Acepta los mismos filtros que /export; conviene acotar from y to a los semestres del reporte.
+     */
+    @GetMapping("/archivo/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportArchivedAttendances(
+            @ModelAttribute AttendanceFilter filter,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+        log.info("Solicitud de exportación de asistencias archivadas en formato {}", exportFormat);
+        filter.validate();
+
+        StreamingResponseBody body = outputStream ->
+                attendanceExportService.exportArchived(filter, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"asistencias-archivo." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
     public ResponseEntity<AttendanceResponse> getAttendanceById(@PathVariable Long id) {
@@ -55,14 +115,38 @@ public class AttendanceController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Registra una asistencia.
+     * POST /api/asistencias (multipart: id, parkId, type y después photo)
+     * Header opcional Idempotency-Key: un reintento con la misma llave devuelve la asistencia
+     * original sin registrar otra.
+     */
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<AttendanceResponse> registerAttendance(
-            @Valid @ModelAttribute AttendanceRequest request,
-            @RequestPart(value = "photo", required = true) MultipartFile photo) {
+            HttpServletRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IOException {
 
-        log.info("Solicitud de registro de asistencia recibida para id={} parkId={}", request.getId(), request.getParkId());
+        log.info("Solicitud de registro de asistencia recibida");
 
-        AttendanceResponse response = attendanceService.registerAttendance(request, photo);
+        // El multipart se lee en streaming; la foto no pasa por el directorio temporal del contenedor
+        AttendanceResponse response = attendanceUploadService.register(request, idempotencyKey);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
+
+    /**
+     * Registra un lote de asistencias capturadas sin conexión por un kiosco.
+     * POST /api/asistencias/lote (multipart)
+     * Parte "records": arreglo JSON de asistencias; cada una indica en "photo" el nombre de la
+     * parte que contiene su foto. La respuesta trae el resultado de cada asistencia en orden.
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AttendanceBatchResponse> registerAttendanceBatch(
+            @RequestPart("records") List<AttendanceBatchItem> records,
+            MultipartHttpServletRequest request) {
+
+        log.info("Solicitud de registro de lote de asistencias recibida con {} registros", records.size());
+
+        AttendanceBatchResponse response = attendanceService.registerBatch(records, request.getFileMap());
+        return ResponseEntity.ok(response);
+    }
 }
@@ -5,14 +5,13 @@ import com.ambu.asistencias.config.CustomUserDetails;
 import com.ambu.asistencias.dto.LoginRequest;
 import com.ambu.asistencias.dto.LoginResponse;
 import com.ambu.asistencias.model.User;
-import com.ambu.asistencias.service.UserDetailsServiceImpl;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -21,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("${api.prefix}/auth")
@@ -30,22 +30,22 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final UserDetailsServiceImpl userDetailsService;
 
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
         try {
             log.info("Intento de login para email: {}", request.getEmail());
 
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getEmail(),
                             request.getPassword()
                     )
             );
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-            
+            // El usuario ya se cargó al autenticar; no se vuelve a consultar
+            Object userDetails = authentication.getPrincipal();
+
             if (userDetails instanceof CustomUserDetails) {
                 CustomUserDetails customUserDetails = (CustomUserDetails) userDetails;
                 User user = customUserDetails.getUser();
@@ -53,7 +53,7 @@ public class AuthController {
                 Map<String, Object> extraClaims = new HashMap<>();
                 extraClaims.put("role", user.getRole().name());
 
-                String token = jwtService.generateToken(userDetails, extraClaims);
+                String token = jwtService.generateToken(customUserDetails, extraClaims);
 
                 LoginResponse response = LoginResponse.builder()
                         .token(token)
@@ -69,6 +69,10 @@ public class AuthController {
                 throw new RuntimeException("Error al obtener detalles del usuario");
             }
 
+        } catch (RejectedExecutionException e) {
+            // Pool de verificación saturado: 503 en lugar de credenciales inválidas
+            log.warn("Login rechazado por saturación para email: {}", request.getEmail());
+            throw e;
         } catch (Exception e) {
             log.error("Error en login para email: {}", request.getEmail(), e);
             throw new UsernameNotFoundException("Credenciales inválidas");
@@ -1,8 +1,10 @@
 package com.ambu.asistencias.controller;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,8 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.ambu.asistencias.dto.ParkDTO;
 import com.ambu.asistencias.dto.ParkRequest;
-import com.ambu.asistencias.model.Park;
-import com.ambu.asistencias.repository.ParkRepository;
+import com.ambu.asistencias.service.ParkCatalogService;
+import com.ambu.asistencias.service.ParkCatalogService.Snapshot;
 import com.ambu.asistencias.service.ParkService;
 
 import jakarta.validation.Valid;
@@ -31,20 +33,26 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ParkController {
 
-    private final ParkRepository parkRepository;
+    private static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+
     private final ParkService parkService;
+    private final ParkCatalogService parkCatalogService;
+
+    @Value("${app.parks.catalog.max-age-seconds:0}")
+    private long catalogMaxAgeSeconds;
 
+    /**
+     * Catálogo de parques. GET /api/parques
+     * Se responde desde memoria con ETag; un If-None-Match vigente recibe 304 sin cuerpo.
+     */
     @GetMapping
     public ResponseEntity<List<ParkDTO>> getAllParks() {
-        List<Park> parks = parkRepository.findAll();
-        List<ParkDTO> parksDTO = parks.stream()
-                .map(park -> ParkDTO.builder()
-                        .id(park.getId())
-                        .parkName(park.getParkName())
-                        .abbreviation(park.getAbbreviation())
-                        .build())
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(parksDTO);
+        Snapshot catalog = parkCatalogService.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(catalog.getEtag())
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(catalogMaxAgeSeconds)).mustRevalidate())
+                .header(CATALOG_VERSION_HEADER, Long.toString(catalog.getVersion()))
+                .body(catalog.getParks());
     }
 
     @GetMapping("/{id}")
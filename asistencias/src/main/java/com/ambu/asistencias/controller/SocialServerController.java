@@ -15,7 +15,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ambu.asistencias.dto.SocialServerRequest;
+import com.ambu.asistencias.dto.ServiceHoursResponse;
 import com.ambu.asistencias.dto.SocialServerResponse;
+import com.ambu.asistencias.service.ServiceHoursService;
 import com.ambu.asistencias.service.SocialServerService;
 
 import jakarta.validation.Valid;
@@ -29,6 +31,7 @@ import lombok.extern.slf4j.Slf4j;
 public class SocialServerController {
 
     private final SocialServerService socialServerService;
+    private final ServiceHoursService serviceHoursService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
@@ -38,6 +41,22 @@ public class SocialServerController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/horas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<List<ServiceHoursResponse>> getAllServiceHours() {
+        log.info("Solicitud de horas de servicio de todos los servidores sociales");
+        List<ServiceHoursResponse> response = serviceHoursService.getAllHours();
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}/horas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ServiceHoursResponse> getServiceHours(@PathVariable Long id) {
+        log.info("Solicitud de horas de servicio del servidor social con ID: {}", id);
+        ServiceHoursResponse response = serviceHoursService.getHours(id);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
     public ResponseEntity<SocialServerResponse> getSocialServerById(@PathVariable Long id) {
@@ -0,0 +1,22 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceArchiveResponse {
+    private LocalDateTime archivedBefore;
+    private List<String> semesters;
+    private Long attendances;
+    private Integer batches;
+    private Long elapsedMillis;
+    private String message;
+}
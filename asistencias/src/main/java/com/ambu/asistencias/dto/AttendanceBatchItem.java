@@ -0,0 +1,34 @@
+package com.ambu.asistencias.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Asistencia de un lote enviado por un kiosco al recuperar la conexión.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBatchItem {
+
+    // Identificador que asigna el kiosco para relacionar la respuesta con su cola
+    private String clientId;
+
+    // Folio del servidor social
+    private Long id;
+
+    private Long parkId;
+
+    private String type; // "CHECK_IN" o "CHECK_OUT"
+
+    // Momento en que se capturó en el kiosco; si es null se usa la hora de llegada
+    private LocalDateTime timestamp;
+
+    // Nombre de la parte multipart que contiene la foto
+    private String photo;
+}
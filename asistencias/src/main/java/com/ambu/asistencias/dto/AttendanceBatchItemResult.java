@@ -0,0 +1,22 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBatchItemResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    private Integer index;
+    private String clientId;
+    private String status;
+    private AttendanceResponse attendance;
+    private String message;
+}
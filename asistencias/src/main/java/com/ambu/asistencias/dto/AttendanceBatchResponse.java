@@ -0,0 +1,19 @@
+package com.ambu.asistencias.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBatchResponse {
+    private Integer received;
+    private Integer created;
+    private Integer rejected;
+    private List<AttendanceBatchItemResult> results;
+}
@@ -0,0 +1,64 @@
+package com.ambu.asistencias.dto;
+
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceFilter {
+
+    private Long socialServerId;
+
+    private Long parkId;
+
+    private String type; // "CHECK_IN" o "CHECK_OUT"
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from; // inclusivo
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to; // inclusivo
+
+    private String cursor;
+
+    private Integer size;
+
+    public AttendanceType attendanceType() {
+        if (type == null || type.isBlank()) {
+            return null;
+        }
+        try {
+            return AttendanceType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ponga un tipo de entrada valido: " + type);
+        }
+    }
+
+    /**
+     * Revisa el tipo y el rango de fechas. Las exportaciones lo llaman antes de empezar a escribir,
+     * porque después de enviar los encabezados ya no se puede responder con un 400.
+     */
+    public void validate() {
+        attendanceType();
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final: " + from + " > " + to);
+        }
+    }
+
+    public LocalDateTime fromTimestamp() {
+        return from != null ? from.atStartOfDay() : null;
+    }
+
+    public LocalDateTime toTimestamp() {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendancePageResponse {
+    private List<AttendanceResponse> items;
+    private String nextCursor; // null cuando no hay más resultados
+}
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class AttendanceResponse {
     private Long id;
+    private Long socialServerId;
     private String email;
     private String socialServerName;
     private String parkName;
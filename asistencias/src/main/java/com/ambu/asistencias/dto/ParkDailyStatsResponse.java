@@ -0,0 +1,23 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkDailyStatsResponse {
+    private Long parkId;
+    private String parkName;
+    private LocalDate date;
+    private Long checkIns;
+    private Long checkOuts;
+    private Long distinctServers;
+    private Long completedSessions;
+    private Double averageSessionMinutes;
+}
@@ -0,0 +1,19 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkPresenceResponse {
+    private Long parkId;
+    private String parkName;
+    private Integer count;
+    private List<PresenceResponse> socialServers;
+}
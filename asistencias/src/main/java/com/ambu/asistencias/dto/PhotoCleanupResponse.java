@@ -0,0 +1,17 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoCleanupResponse {
+    private Integer unreferencedBlobs;
+    private Integer deletedFiles;
+    private Long elapsedMillis;
+    private String message;
+}
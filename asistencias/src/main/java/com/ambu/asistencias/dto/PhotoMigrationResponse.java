@@ -0,0 +1,19 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoMigrationResponse {
+    private Long attendances;
+    private Long photos;
+    private Long missing;
+    private Integer batches;
+    private Long elapsedMillis;
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.ambu.asistencias.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceHoursResponse {
+    private Long socialServerId;
+    private String email;
+    private String name;
+    private Integer totalHoursRequired;
+    private Long accruedMinutes;
+    private Double hoursCompleted;
+    private Double hoursRemaining;
+    private Integer completedSessions;
+    private LocalDateTime openCheckIn;
+}
@@ -0,0 +1,15 @@
+package com.ambu.asistencias.event;
+
+import com.ambu.asistencias.dto.AttendanceDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica al registrar una asistencia. Los listeners que reaccionan a él deben usar
+ * {@code @TransactionalEventListener} para actuar sólo cuando la transacción se confirmó.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AttendanceRegisteredEvent {
+    private final AttendanceDTO attendance;
+}
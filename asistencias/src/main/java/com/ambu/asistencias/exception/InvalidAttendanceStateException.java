@@ -0,0 +1,7 @@
+package com.ambu.asistencias.exception;
+
+public class InvalidAttendanceStateException extends RuntimeException {
+    public InvalidAttendanceStateException(String message) {
+        super(message);
+    }
+}
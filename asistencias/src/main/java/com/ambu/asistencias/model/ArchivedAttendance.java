@@ -0,0 +1,60 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asistencia de un semestre cerrado. {@code AttendanceArchiveService} mueve las filas desde
+ * {@code attendances} conservando su id, así que las consultas habituales sólo recorren los
+ * semestres vigentes. Sin llaves foráneas: en MySQL la tabla está particionada por semestre.
+ */
+@Entity
+@Table(name = "attendances_archive", indexes = {
+        @Index(name = "idx_attendances_archive_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_attendances_archive_server_timestamp", columnList = "social_server_id, timestamp, id"),
+        @Index(name = "idx_attendances_archive_park_timestamp", columnList = "park_id, timestamp, id"),
+        @Index(name = "idx_attendances_archive_photo_path", columnList = "photo_path")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedAttendance {
+
+    @Id
+    private Long id;
+
+    @NotNull
+    @Column(name = "social_server_id", nullable = false)
+    private Long socialServerId;
+
+    @NotNull
+    @Column(name = "park_id", nullable = false)
+    private Long parkId;
+
+    @NotNull
+    @Column(name = "timestamp", nullable = false)
+    private LocalDateTime timestamp;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AttendanceType type;
+
+    @NotNull
+    @Column(name = "photo_path", nullable = false, length = 255)
+    private String photoPath;
+
+    @NotNull
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @NotNull
+    @Column(name = "stats_epoch", nullable = false)
+    private Long statsEpoch;
+}
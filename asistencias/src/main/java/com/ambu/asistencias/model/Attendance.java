@@ -9,7 +9,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendances")
+@Table(name = "attendances", indexes = {
+        @Index(name = "idx_attendances_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_attendances_server_timestamp", columnList = "social_server_id, timestamp, id"),
+        @Index(name = "idx_attendances_park_timestamp", columnList = "park_id, timestamp, id"),
+        @Index(name = "idx_attendances_photo_path", columnList = "photo_path")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,8 +26,11 @@ public class Attendance {
         CHECK_OUT
     }
 
+    // Secuencia con asignación por bloques: a diferencia de IDENTITY permite que Hibernate agrupe
+    // los inserts en lotes JDBC (en MySQL se emula con la tabla attendances_seq)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendances_seq")
+    @SequenceGenerator(name = "attendances_seq", sequenceName = "attendances_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -49,4 +57,10 @@ public class Attendance {
     @Column(name = "photo_path", nullable = false, length = 255)
     private String photoPath;
 
+    // Generación de estadísticas con la que se contó en línea (ver ParkStatsEpoch)
+    @NotNull
+    @Builder.Default
+    @Column(name = "stats_epoch", nullable = false)
+    private Long statsEpoch = 0L;
+
 }
\ No newline at end of file
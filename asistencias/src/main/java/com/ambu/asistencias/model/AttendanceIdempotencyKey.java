@@ -0,0 +1,41 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key con la que un kiosco registró una asistencia.
+ * La llave primaria garantiza que un reintento no cree una segunda asistencia,
+ * aunque llegue a otra instancia o después de reiniciar la aplicación. Se guarda la huella de la
+ * solicitud para rechazar la llave si se reutiliza con otros datos.
+ */
+@Entity
+@Table(name = "attendance_idempotency_keys", indexes = {
+        @Index(name = "idx_attendance_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendanceIdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @NotNull
+    @Column(name = "attendance_id", nullable = false)
+    private Long attendanceId;
+
+    // SHA-256 en hexadecimal de la solicitud; null en llaves registradas antes de guardarla
+    @Column(name = "payload_hash", length = 64)
+    private String payloadHash;
+
+    @NotNull
+    @Builder.Default
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
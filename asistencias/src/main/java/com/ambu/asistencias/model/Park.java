@@ -5,10 +5,16 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.ambu.asistencias.config.HibernateCacheConfig;
+
 import java.util.List;
 
 @Entity
 @Table(name = "parks")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PARKS_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
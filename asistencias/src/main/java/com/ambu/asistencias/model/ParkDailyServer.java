@@ -0,0 +1,42 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Servidores sociales que asistieron a un parque en un día; permite contar
+ * {@code ParkDailyStats.distinctServers} de forma incremental.
+ */
+@Entity
+@Table(name = "park_daily_servers")
+@IdClass(ParkDailyServer.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParkDailyServer {
+
+    @Id
+    @Column(name = "park_id")
+    private Long parkId;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    @Column(name = "social_server_id")
+    private Long socialServerId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long parkId;
+        private LocalDate statDate;
+        private Long socialServerId;
+    }
+}
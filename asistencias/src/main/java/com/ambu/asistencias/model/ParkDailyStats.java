@@ -0,0 +1,58 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Agregado diario de asistencias por parque. Se incrementa al registrar cada asistencia
+ * y lo reconstruye el backfill de {@code ParkStatsService}.
+ */
+@Entity
+@Table(name = "park_daily_stats")
+@IdClass(ParkDailyStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParkDailyStats {
+
+    @Id
+    @Column(name = "park_id")
+    private Long parkId;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @NotNull
+    @Column(name = "check_ins", nullable = false)
+    private Long checkIns;
+
+    @NotNull
+    @Column(name = "check_outs", nullable = false)
+    private Long checkOuts;
+
+    @NotNull
+    @Column(name = "distinct_servers", nullable = false)
+    private Long distinctServers;
+
+    @NotNull
+    @Column(name = "completed_sessions", nullable = false)
+    private Long completedSessions;
+
+    @NotNull
+    @Column(name = "session_minutes", nullable = false)
+    private Long sessionMinutes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long parkId;
+        private LocalDate statDate;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Generación vigente de las estadísticas diarias (una sola fila). Cada asistencia guarda la
+ * generación con la que se contó en línea; el backfill la incrementa al borrar las estadísticas.
+ */
+@Entity
+@Table(name = "park_stats_epoch")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParkStatsEpoch {
+
+    @Id
+    private Integer id;
+
+    @NotNull
+    @Column(nullable = false)
+    private Long epoch;
+}
@@ -0,0 +1,47 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archivo del almacén de fotos direccionado por contenido.
+ * Varias asistencias pueden apuntar al mismo archivo; {@code refCount} cuenta cuántas lo hacen
+ * y cuando llega a cero el archivo puede eliminarse.
+ */
+@Entity
+@Table(name = "photo_blobs", indexes = {
+        @Index(name = "idx_photo_blobs_path", columnList = "path", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PhotoBlob {
+
+    // SHA-256 en hexadecimal del contenido subido
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Ruta guardada en Attendance.photoPath
+    @NotNull
+    @Column(nullable = false, length = 255)
+    private String path;
+
+    @NotNull
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @NotNull
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private Integer refCount = 0;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,48 @@
+package com.ambu.asistencias.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Total acumulado de minutos de servicio de un servidor social.
+ * Se mantiene al registrar cada asistencia emparejando CHECK_IN con el siguiente CHECK_OUT,
+ * de modo que consultar las horas no requiere recorrer el historial de asistencias.
+ */
+@Entity
+@Table(name = "service_hours_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ServiceHoursLedger {
+
+    @Id
+    @Column(name = "social_server_id")
+    private Long socialServerId;
+
+    @NotNull
+    @Column(name = "accrued_minutes", nullable = false)
+    @Builder.Default
+    private Long accruedMinutes = 0L;
+
+    @NotNull
+    @Column(name = "completed_sessions", nullable = false)
+    @Builder.Default
+    private Integer completedSessions = 0;
+
+    // Timestamp del CHECK_IN que aún no tiene CHECK_OUT, null si no hay sesión abierta
+    @Column(name = "open_check_in")
+    private LocalDateTime openCheckIn;
+
+    // Timestamp de la última asistencia aplicada; una asistencia anterior llega fuera de orden
+    @Column(name = "last_attendance_at")
+    private LocalDateTime lastAttendanceAt;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -7,11 +7,20 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import com.ambu.asistencias.config.HibernateCacheConfig;
+
 import java.time.LocalTime;
 import java.util.List;
 
 @Entity
 @Table(name = "social_servers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.SOCIAL_SERVERS_REGION)
+@NaturalIdCache(region = HibernateCacheConfig.SOCIAL_SERVER_EMAILS_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +33,7 @@ public class SocialServer {
 
     @Email
     @NotBlank
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true, length = 255)
     private String email;
 
@@ -0,0 +1,124 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.ambu.asistencias.model.ArchivedAttendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.repository.AttendanceRepository.AttendanceRow;
+import com.ambu.asistencias.repository.AttendanceRepository.TimelineEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+/**
+ * Asistencias de semestres cerrados. Las consultas con rango de fechas filtran por
+ * {@code timestamp} para que MySQL lea sólo las particiones de esos semestres.
+ */
+@Repository
+public interface ArchivedAttendanceRepository extends JpaRepository<ArchivedAttendance, Long> {
+
+    /**
+     * Copia estas asistencias al archivo. Debe ir en la misma transacción que las borra de
+     * {@code attendances}.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attendances_archive"))
+    @Query(value = """
+            INSERT INTO attendances_archive
+                (id, social_server_id, park_id, timestamp, type, photo_path, archived_at, stats_epoch)
+            SELECT id, social_server_id, park_id, timestamp, type, photo_path, :archivedAt, stats_epoch
+            FROM attendances
+            WHERE id IN (:ids)
+            """, nativeQuery = true)
+    int copyFromAttendances(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Historial archivado de un grupo de servidores sociales, en el mismo orden que
+     * {@link AttendanceRepository#findTimelineBySocialServerIds(Collection)}.
+     */
+    @Query("""
+            SELECT a.socialServerId AS socialServerId, a.type AS type, a.timestamp AS timestamp
+            FROM ArchivedAttendance a
+            WHERE a.socialServerId IN :socialServerIds
+            ORDER BY a.socialServerId, a.timestamp, a.id
+            """)
+    List<TimelineEntry> findTimelineBySocialServerIds(@Param("socialServerIds") Collection<Long> socialServerIds);
+
+    /**
+     * Igual que {@link AttendanceRepository#findRowsBeforeEpoch} sobre el archivo.
+     */
+    @Query("""
+            SELECT a.id AS id, a.parkId AS parkId, a.socialServerId AS socialServerId,
+                   a.type AS type, a.timestamp AS timestamp
+            FROM ArchivedAttendance a
+            WHERE a.statsEpoch < :epoch
+              AND (:afterTimestamp IS NULL
+                   OR a.timestamp > :afterTimestamp
+                   OR (a.timestamp = :afterTimestamp AND a.id > :afterId))
+            ORDER BY a.timestamp, a.id
+            """)
+    List<AttendanceRow> findRowsBeforeEpoch(@Param("epoch") Long epoch,
+                                            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                            @Param("afterId") Long afterId,
+                                            Limit limit);
+
+    /**
+     * Recorre las asistencias archivadas en orden cronológico para los reportes históricos, con
+     * los mismos filtros y hints que {@link AttendanceRepository#streamForExport}.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT a.id AS id, a.timestamp AS timestamp, a.type AS type,
+                   s.id AS socialServerId, s.email AS socialServerEmail, s.name AS socialServerName,
+                   p.id AS parkId, p.parkName AS parkName, a.photoPath AS photoPath
+            FROM ArchivedAttendance a
+            JOIN SocialServer s ON s.id = a.socialServerId
+            JOIN Park p ON p.id = a.parkId
+            WHERE (:socialServerId IS NULL OR a.socialServerId = :socialServerId)
+              AND (:parkId IS NULL OR a.parkId = :parkId)
+              AND (:type IS NULL OR a.type = :type)
+              AND (:from IS NULL OR a.timestamp >= :from)
+              AND (:to IS NULL OR a.timestamp < :to)
+            ORDER BY a.timestamp ASC, a.id ASC
+            """)
+    Stream<ArchivedRow> streamForExport(@Param("socialServerId") Long socialServerId,
+                                        @Param("parkId") Long parkId,
+                                        @Param("type") AttendanceType type,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("UPDATE ArchivedAttendance a SET a.photoPath = :newPath WHERE a.photoPath = :oldPath")
+    int replacePhotoPath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedAttendance a WHERE a.socialServerId = :socialServerId")
+    int deleteBySocialServerId(@Param("socialServerId") Long socialServerId);
+
+    interface ArchivedRow {
+        Long getId();
+        LocalDateTime getTimestamp();
+        AttendanceType getType();
+        Long getSocialServerId();
+        String getSocialServerEmail();
+        String getSocialServerName();
+        Long getParkId();
+        String getParkName();
+        String getPhotoPath();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.ambu.asistencias.model.AttendanceIdempotencyKey;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface AttendanceIdempotencyKeyRepository extends JpaRepository<AttendanceIdempotencyKey, String> {
+
+    /**
+     * Inserta la llave sin pasar por merge: si otra petición ya la registró falla con una
+     * violación de llave primaria en lugar de sobrescribirla.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attendance_idempotency_keys"))
+    @Query(value = """
+            INSERT INTO attendance_idempotency_keys (idempotency_key, attendance_id, payload_hash, created_at)
+            VALUES (:idempotencyKey, :attendanceId, :payloadHash, :createdAt)
+            """, nativeQuery = true)
+    void insert(@Param("idempotencyKey") String idempotencyKey,
+                @Param("attendanceId") Long attendanceId,
+                @Param("payloadHash") String payloadHash,
+                @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("SELECT k.idempotencyKey FROM AttendanceIdempotencyKey k WHERE k.createdAt < :before")
+    List<String> findKeysCreatedBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceIdempotencyKey k WHERE k.idempotencyKey IN :keys")
+    int deleteByKeyIn(@Param("keys") Collection<String> keys);
+}
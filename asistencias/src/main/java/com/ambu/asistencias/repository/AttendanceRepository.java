@@ -1,14 +1,163 @@
 package com.ambu.asistencias.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.HibernateHints;
+
 import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
 import com.ambu.asistencias.model.SocialServer;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Long>{
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, AttendanceRepositoryCustom {
+    @EntityGraph(attributePaths = {"socialServer", "park"})
     List<Attendance> findBySocialServerOrderByTimestampDesc(SocialServer socialServer);
+
+    @EntityGraph(attributePaths = {"socialServer", "park"})
+    Optional<Attendance> findWithDetailsById(Long id);
+
+    /**
+     * Tipo y timestamp de las asistencias de un grupo de servidores sociales, ordenadas por servidor
+     * y cronológicamente. Se usa para recalcular el ledger de horas por bloques.
+     */
+    @Query("""
+            SELECT a.socialServer.id AS socialServerId, a.type AS type, a.timestamp AS timestamp
+            FROM Attendance a
+            WHERE a.socialServer.id IN :socialServerIds
+            ORDER BY a.socialServer.id, a.timestamp, a.id
+            """)
+    List<TimelineEntry> findTimelineBySocialServerIds(@Param("socialServerIds") Collection<Long> socialServerIds);
+
+    /**
+     * Última asistencia de cada servidor social cuando es un CHECK_IN posterior a {@code since},
+     * es decir, los servidores que siguen dentro de un parque. Se usa para reconstruir el registro
+     * de presencia al arrancar. La última es la de mayor (timestamp, id): con ids asignados por
+     * bloques entre instancias, el id más alto no es necesariamente el más reciente.
+     */
+    @Query("""
+            SELECT a FROM Attendance a
+            JOIN FETCH a.socialServer
+            JOIN FETCH a.park
+            WHERE a.type = com.ambu.asistencias.model.Attendance.AttendanceType.CHECK_IN
+              AND a.timestamp >= :since
+              AND NOT EXISTS (
+                  SELECT 1 FROM Attendance b
+                  WHERE b.socialServer = a.socialServer
+                    AND (b.timestamp > a.timestamp OR (b.timestamp = a.timestamp AND b.id > a.id)))
+            """)
+    List<Attendance> findOpenCheckInsSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Asistencias contadas antes de la generación de estadísticas {@code epoch}, en orden
+     * cronológico a partir del cursor (afterTimestamp, afterId), o desde el principio si es null.
+     * Se usa para recorrer la tabla por bloques en el backfill de estadísticas; las de la
+     * generación {@code epoch} ya se contaron en línea.
+     */
+    @Query("""
+            SELECT a.id AS id, a.park.id AS parkId, a.socialServer.id AS socialServerId,
+                   a.type AS type, a.timestamp AS timestamp
+            FROM Attendance a
+            WHERE a.statsEpoch < :epoch
+              AND (:afterTimestamp IS NULL
+                   OR a.timestamp > :afterTimestamp
+                   OR (a.timestamp = :afterTimestamp AND a.id > :afterId))
+            ORDER BY a.timestamp, a.id
+            """)
+    List<AttendanceRow> findRowsBeforeEpoch(@Param("epoch") Long epoch,
+                                            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                            @Param("afterId") Long afterId,
+                                            Limit limit);
+
+    /**
+     * Recorre las asistencias en orden cronológico para exportarlas sin cargarlas todas en memoria.
+     * Con MySQL Connector/J un fetch size de Integer.MIN_VALUE hace que el result set se lea fila
+     * por fila desde el servidor; mientras el stream esté abierto no se puede usar la misma conexión
+     * para otras consultas, por eso las asociaciones se traen con JOIN FETCH.
+     * El stream debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT a FROM Attendance a
+            JOIN FETCH a.socialServer
+            JOIN FETCH a.park
+            WHERE (:socialServerId IS NULL OR a.socialServer.id = :socialServerId)
+              AND (:parkId IS NULL OR a.park.id = :parkId)
+              AND (:type IS NULL OR a.type = :type)
+              AND (:from IS NULL OR a.timestamp >= :from)
+              AND (:to IS NULL OR a.timestamp < :to)
+            ORDER BY a.timestamp ASC, a.id ASC
+            """)
+    Stream<Attendance> streamForExport(@Param("socialServerId") Long socialServerId,
+                                       @Param("parkId") Long parkId,
+                                       @Param("type") AttendanceType type,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    /**
+     * Asistencias con id mayor a {@code afterId} cuya foto todavía no está en el almacén
+     * direccionado por contenido, ordenadas por id. Se usa para migrar las fotos por bloques.
+     */
+    @Query("""
+            SELECT a.id AS id, a.photoPath AS photoPath
+            FROM Attendance a
+            WHERE a.id > :afterId
+              AND NOT EXISTS (SELECT 1 FROM PhotoBlob b WHERE b.path = a.photoPath)
+            ORDER BY a.id
+            """)
+    List<PhotoRow> findLegacyPhotos(@Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Attendance a SET a.photoPath = :newPath WHERE a.photoPath = :oldPath")
+    int replacePhotoPath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    @Query("SELECT MIN(a.timestamp) FROM Attendance a")
+    LocalDateTime findOldestTimestamp();
+
+    /**
+     * Ids de las asistencias anteriores a {@code before}, en orden cronológico. Se usa para
+     * archivar los semestres cerrados por bloques.
+     */
+    @Query("SELECT a.id FROM Attendance a WHERE a.timestamp < :before ORDER BY a.timestamp, a.id")
+    List<Long> findIdsBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Attendance a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface TimelineEntry {
+        Long getSocialServerId();
+        AttendanceType getType();
+        LocalDateTime getTimestamp();
+    }
+
+    interface AttendanceRow {
+        Long getId();
+        Long getParkId();
+        Long getSocialServerId();
+        AttendanceType getType();
+        LocalDateTime getTimestamp();
+    }
+
+    interface PhotoRow {
+        Long getId();
+        String getPhotoPath();
+    }
 }
@@ -0,0 +1,21 @@
+package com.ambu.asistencias.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+
+public interface AttendanceRepositoryCustom {
+
+    /**
+     * Página de asistencias ordenada por (timestamp, id) descendente usando keyset pagination.
+     * El cursor (cursorTimestamp, cursorId) es la última fila de la página anterior; si es null
+     * se devuelve la primera página. Los filtros null se ignoran.
+     */
+    List<Attendance> findPage(Long socialServerId, Long parkId, AttendanceType type,
+                              LocalDateTime from, LocalDateTime to,
+                              LocalDateTime cursorTimestamp, Long cursorId, Limit limit);
+}
@@ -0,0 +1,88 @@
+package com.ambu.asistencias.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+class AttendanceRepositoryImpl implements AttendanceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Sólo se escriben las condiciones de los filtros presentes: con {@code (:x IS NULL OR ...)}
+     * el planificador no puede elegir el índice del filtro al preparar la sentencia. Las asociaciones
+     * se cargan con un entity graph y no con JOIN FETCH para que servidor y parque se comparen con la
+     * llave foránea de {@code attendances}: así el índice compuesto (llave, timestamp, id) resuelve
+     * filtro, cursor y orden a la vez.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Attendance> findPage(Long socialServerId, Long parkId, AttendanceType type,
+                                     LocalDateTime from, LocalDateTime to,
+                                     LocalDateTime cursorTimestamp, Long cursorId, Limit limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (socialServerId != null) {
+            conditions.add("a.socialServer.id = :socialServerId");
+            parameters.put("socialServerId", socialServerId);
+        }
+        if (parkId != null) {
+            conditions.add("a.park.id = :parkId");
+            parameters.put("parkId", parkId);
+        }
+        if (type != null) {
+            conditions.add("a.type = :type");
+            parameters.put("type", type);
+        }
+        if (from != null) {
+            conditions.add("a.timestamp >= :from");
+            parameters.put("from", from);
+        }
+        if (to != null) {
+            conditions.add("a.timestamp < :to");
+            parameters.put("to", to);
+        }
+        if (cursorTimestamp != null) {
+            // La primera condición acota el rango del índice; la segunda desempata por id
+            conditions.add("a.timestamp <= :cursorTimestamp");
+            conditions.add("(a.timestamp < :cursorTimestamp OR a.id < :cursorId)");
+            parameters.put("cursorTimestamp", cursorTimestamp);
+            parameters.put("cursorId", cursorId);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT a FROM Attendance a\n");
+        if (!conditions.isEmpty()) {
+            jpql.append("WHERE ").append(String.join(" AND ", conditions)).append('\n');
+        }
+        jpql.append("ORDER BY a.timestamp DESC, a.id DESC");
+
+        TypedQuery<Attendance> query = entityManager.createQuery(jpql.toString(), Attendance.class);
+        parameters.forEach(query::setParameter);
+        query.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, detailsGraph());
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+
+    private EntityGraph<Attendance> detailsGraph() {
+        EntityGraph<Attendance> graph = entityManager.createEntityGraph(Attendance.class);
+        graph.addAttributeNodes("socialServer", "park");
+        return graph;
+    }
+}
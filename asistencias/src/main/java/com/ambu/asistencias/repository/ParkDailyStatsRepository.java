@@ -0,0 +1,90 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.ambu.asistencias.model.ParkDailyStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ParkDailyStatsRepository extends JpaRepository<ParkDailyStats, ParkDailyStats.Key> {
+
+    /**
+     * Suma los contadores dados a la fila (parque, día), creándola si no existe.
+     * Es una sola sentencia atómica, así que registros simultáneos no pierden incrementos.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "park_daily_stats"))
+    @Query(value = """
+            INSERT INTO park_daily_stats
+                (park_id, stat_date, check_ins, check_outs, distinct_servers, completed_sessions, session_minutes)
+            VALUES (:parkId, :statDate, :checkIns, :checkOuts, :distinctServers, :completedSessions, :sessionMinutes)
+            ON DUPLICATE KEY UPDATE
+                check_ins = check_ins + VALUES(check_ins),
+                check_outs = check_outs + VALUES(check_outs),
+                distinct_servers = distinct_servers + VALUES(distinct_servers),
+                completed_sessions = completed_sessions + VALUES(completed_sessions),
+                session_minutes = session_minutes + VALUES(session_minutes)
+            """, nativeQuery = true)
+    void increment(@Param("parkId") Long parkId,
+                   @Param("statDate") LocalDate statDate,
+                   @Param("checkIns") long checkIns,
+                   @Param("checkOuts") long checkOuts,
+                   @Param("distinctServers") long distinctServers,
+                   @Param("completedSessions") long completedSessions,
+                   @Param("sessionMinutes") long sessionMinutes);
+
+    /**
+     * Registra que el servidor social asistió al parque ese día.
+     * Devuelve 1 si es la primera vez en el día y 0 si ya estaba registrado.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "park_daily_servers"))
+    @Query(value = """
+            INSERT IGNORE INTO park_daily_servers (park_id, stat_date, social_server_id)
+            VALUES (:parkId, :statDate, :socialServerId)
+            """, nativeQuery = true)
+    int markServerPresent(@Param("parkId") Long parkId,
+                          @Param("statDate") LocalDate statDate,
+                          @Param("socialServerId") Long socialServerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "park_daily_servers"))
+    @Query(value = "DELETE FROM park_daily_servers", nativeQuery = true)
+    void deleteAllServers();
+
+    @Query("""
+            SELECT s.parkId AS parkId, p.parkName AS parkName, s.statDate AS statDate,
+                   s.checkIns AS checkIns, s.checkOuts AS checkOuts, s.distinctServers AS distinctServers,
+                   s.completedSessions AS completedSessions, s.sessionMinutes AS sessionMinutes
+            FROM ParkDailyStats s
+            JOIN Park p ON p.id = s.parkId
+            WHERE s.statDate BETWEEN :from AND :to
+              AND (:parkId IS NULL OR s.parkId = :parkId)
+            ORDER BY s.statDate, p.parkName
+            """)
+    List<DailyStatsView> findDashboard(@Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("parkId") Long parkId);
+
+    interface DailyStatsView {
+        Long getParkId();
+        String getParkName();
+        LocalDate getStatDate();
+        Long getCheckIns();
+        Long getCheckOuts();
+        Long getDistinctServers();
+        Long getCompletedSessions();
+        Long getSessionMinutes();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.ambu.asistencias.model.ParkStatsEpoch;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ParkStatsEpochRepository extends JpaRepository<ParkStatsEpoch, Integer> {
+
+    /**
+     * Lock compartido: los registros no se esperan entre sí, sólo al backfill.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT e FROM ParkStatsEpoch e WHERE e.id = 1")
+    ParkStatsEpoch findForShare();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM ParkStatsEpoch e WHERE e.id = 1")
+    ParkStatsEpoch findForUpdate();
+}
@@ -0,0 +1,73 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.ambu.asistencias.model.PhotoBlob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+
+    /**
+     * Suma {@code references} referencias al archivo, creando su fila si no existe.
+     * Es una sola sentencia atómica, así que subidas simultáneas del mismo contenido no pierden referencias.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photo_blobs"))
+    @Query(value = """
+            INSERT INTO photo_blobs (hash, path, size_bytes, ref_count, created_at)
+            VALUES (:hash, :path, :sizeBytes, :references, :createdAt)
+            ON DUPLICATE KEY UPDATE ref_count = ref_count + VALUES(ref_count)
+            """, nativeQuery = true)
+    void acquire(@Param("hash") String hash,
+                 @Param("path") String path,
+                 @Param("sizeBytes") long sizeBytes,
+                 @Param("references") int references,
+                 @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Resta las referencias de las asistencias de un servidor social.
+     * Debe llamarse antes de borrarlas.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photo_blobs"))
+    @Query(value = """
+            UPDATE photo_blobs SET ref_count = ref_count - (
+                SELECT COUNT(*) FROM attendances a
+                WHERE a.social_server_id = :socialServerId AND a.photo_path = photo_blobs.path)
+            WHERE path IN (SELECT photo_path FROM attendances WHERE social_server_id = :socialServerId)
+            """, nativeQuery = true)
+    int releaseBySocialServerId(@Param("socialServerId") Long socialServerId);
+
+    /**
+     * Igual que {@link #releaseBySocialServerId(Long)} para sus asistencias archivadas.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photo_blobs"))
+    @Query(value = """
+            UPDATE photo_blobs SET ref_count = ref_count - (
+                SELECT COUNT(*) FROM attendances_archive a
+                WHERE a.social_server_id = :socialServerId AND a.photo_path = photo_blobs.path)
+            WHERE path IN (SELECT photo_path FROM attendances_archive WHERE social_server_id = :socialServerId)
+            """, nativeQuery = true)
+    int releaseArchivedBySocialServerId(@Param("socialServerId") Long socialServerId);
+
+    @Modifying
+    @Query("DELETE FROM PhotoBlob b WHERE b.refCount <= 0")
+    int deleteUnreferenced();
+
+    @Query("SELECT b.hash FROM PhotoBlob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+}
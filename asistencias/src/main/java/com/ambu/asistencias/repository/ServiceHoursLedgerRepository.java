@@ -0,0 +1,60 @@
+package com.ambu.asistencias.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ambu.asistencias.model.ServiceHoursLedger;
+
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ServiceHoursLedgerRepository extends JpaRepository<ServiceHoursLedger, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ServiceHoursLedger l WHERE l.socialServerId = :socialServerId")
+    Optional<ServiceHoursLedger> findForUpdate(@Param("socialServerId") Long socialServerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ServiceHoursLedger l WHERE l.socialServerId IN :socialServerIds")
+    List<ServiceHoursLedger> findAllForUpdate(@Param("socialServerIds") Collection<Long> socialServerIds);
+
+    @Query("""
+            SELECT s.id AS socialServerId, s.email AS email, s.name AS name,
+                   s.totalHoursRequired AS totalHoursRequired,
+                   l.accruedMinutes AS accruedMinutes, l.completedSessions AS completedSessions,
+                   l.openCheckIn AS openCheckIn
+            FROM SocialServer s
+            LEFT JOIN ServiceHoursLedger l ON l.socialServerId = s.id
+            WHERE s.id = :socialServerId
+            """)
+    Optional<HoursView> findHoursBySocialServerId(@Param("socialServerId") Long socialServerId);
+
+    @Query("""
+            SELECT s.id AS socialServerId, s.email AS email, s.name AS name,
+                   s.totalHoursRequired AS totalHoursRequired,
+                   l.accruedMinutes AS accruedMinutes, l.completedSessions AS completedSessions,
+                   l.openCheckIn AS openCheckIn
+            FROM SocialServer s
+            LEFT JOIN ServiceHoursLedger l ON l.socialServerId = s.id
+            ORDER BY s.name
+            """)
+    List<HoursView> findAllHours();
+
+    interface HoursView {
+        Long getSocialServerId();
+        String getEmail();
+        String getName();
+        Integer getTotalHoursRequired();
+        Long getAccruedMinutes();
+        Integer getCompletedSessions();
+        LocalDateTime getOpenCheckIn();
+    }
+}
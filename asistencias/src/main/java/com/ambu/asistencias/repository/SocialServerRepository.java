@@ -1,13 +1,24 @@
 package com.ambu.asistencias.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.ambu.asistencias.model.SocialServer;
 
 @Repository
-public interface SocialServerRepository extends JpaRepository<SocialServer, Long>{
-    Optional<SocialServer> findByEmail(String email);
+public interface SocialServerRepository extends JpaRepository<SocialServer, Long>, SocialServerRepositoryCustom {
+    @Override
+    @EntityGraph(attributePaths = "park")
+    List<SocialServer> findAll();
+
+    @EntityGraph(attributePaths = "park")
+    Optional<SocialServer> findWithParkById(Long id);
+
+    @Query("SELECT s.id FROM SocialServer s ORDER BY s.id")
+    List<Long> findAllIds();
 }
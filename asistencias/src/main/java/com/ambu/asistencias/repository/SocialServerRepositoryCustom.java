@@ -0,0 +1,14 @@
+package com.ambu.asistencias.repository;
+
+import java.util.Optional;
+
+import com.ambu.asistencias.model.SocialServer;
+
+public interface SocialServerRepositoryCustom {
+
+    /**
+     * Busca por correo, el natural id de {@link SocialServer}: se resuelve desde la caché de
+     * segundo nivel cuando el correo ya se consultó.
+     */
+    Optional<SocialServer> findByEmail(String email);
+}
@@ -0,0 +1,192 @@
+package com.ambu.asistencias.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.dto.AttendanceArchiveResponse;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mueve las asistencias de semestres cerrados de {@code attendances} a {@code attendances_archive}.
+ *
+ * En {@code attendances} se quedan los últimos {@code app.attendance.archive.keep-semesters}
+ * semestres (el actual incluido), así que el listado, la exportación y la reconstrucción de
+ * presencia sólo recorren esas filas. Los semestres van de enero a junio y de julio a diciembre.
+ * Se procesa por bloques de {@code app.attendance.archive.batch-size} asistencias, cada uno copiado
+ * y borrado en su propia transacción, por lo que se puede interrumpir y volver a ejecutar.
+ *
+ * En MySQL el archivo está particionado por semestre: antes de mover un semestre se le crea su
+ * partición separándola de {@code p_max}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceArchiveService {
+
+    private static final String ARCHIVE_TABLE = "attendances_archive";
+    private static final String MAX_PARTITION = "p_max";
+
+    private final AttendanceRepository attendanceRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.attendance.archive.keep-semesters:2}")
+    private int keepSemesters;
+
+    @Value("${app.attendance.archive.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Semestre escolar: {@code half} 1 es enero-junio y 2 es julio-diciembre.
+     */
+    public record Semester(int year, int half) {
+
+        public static Semester of(LocalDate date) {
+            return new Semester(date.getYear(), date.getMonthValue() <= 6 ? 1 : 2);
+        }
+
+        public LocalDate firstDay() {
+            return LocalDate.of(year, half == 1 ? 1 : 7, 1);
+        }
+
+        public Semester next() {
+            return half == 1 ? new Semester(year, 2) : new Semester(year + 1, 1);
+        }
+
+        public Semester previous() {
+            return half == 2 ? new Semester(year, 1) : new Semester(year - 1, 2);
+        }
+
+        String partitionName() {
+            return "p" + year + "_" + half;
+        }
+
+        @Override
+        public String toString() {
+            return year + "-" + half;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (keepSemesters < 1) {
+            throw new IllegalStateException("app.attendance.archive.keep-semesters debe ser al menos 1");
+        }
+    }
+
+    /**
+     * Archiva las asistencias anteriores al primer semestre que se conserva.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AttendanceArchiveResponse archiveClosedSemesters() {
+        long start = System.currentTimeMillis();
+        Semester firstKept = Semester.of(LocalDate.now());
+        for (int i = 1; i < keepSemesters; i++) {
+            firstKept = firstKept.previous();
+        }
+        LocalDateTime cutoff = firstKept.firstDay().atStartOfDay();
+
+        List<Semester> semesters = new ArrayList<>();
+        LocalDateTime oldest = attendanceRepository.findOldestTimestamp();
+        if (oldest != null) {
+            for (Semester semester = Semester.of(oldest.toLocalDate());
+                    semester.firstDay().atStartOfDay().isBefore(cutoff); semester = semester.next()) {
+                semesters.add(semester);
+            }
+        }
+        log.info("Archivando asistencias anteriores a {} ({} semestres)", cutoff, semesters.size());
+
+        if (!semesters.isEmpty() && isMySql()) {
+            addPartitions(semesters);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime archivedAt = LocalDateTime.now();
+        long attendances = 0;
+        int batches = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Long> ids = attendanceRepository.findIdsBefore(cutoff, Limit.of(batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archivedAttendanceRepository.copyFromAttendances(ids, archivedAt);
+                return attendanceRepository.deleteByIdIn(ids);
+            });
+            if (moved == null || moved == 0) {
+                break;
+            }
+            attendances += moved;
+            batches++;
+            log.debug("Bloque {} de archivado: {} asistencias", batches, moved);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Archivado terminado en {} ms: {} asistencias en {} bloques", elapsed, attendances, batches);
+        return AttendanceArchiveResponse.builder()
+                .archivedBefore(cutoff)
+                .semesters(semesters.stream().map(Semester::toString).toList())
+                .attendances(attendances)
+                .batches(batches)
+                .elapsedMillis(elapsed)
+                .message("Asistencias archivadas exitosamente")
+                .build();
+    }
+
+    /**
+     * Crea en orden las particiones que faltan separándolas de {@code p_max}, que debe seguir vacía
+     * para que la reorganización no copie filas. Los semestres anteriores a la última partición
+     * existente caen en ella, así que no se crean.
+     */
+    private void addPartitions(List<Semester> semesters) {
+        List<String> existing = jdbcTemplate.queryForList("""
+                SELECT partition_name FROM information_schema.partitions
+                WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL
+                """, String.class, ARCHIVE_TABLE);
+        if (!existing.contains(MAX_PARTITION)) {
+            log.warn("{} no tiene la partición {}, se archiva sin crear particiones", ARCHIVE_TABLE, MAX_PARTITION);
+            return;
+        }
+        String last = existing.stream()
+                .filter(name -> !MAX_PARTITION.equals(name))
+                .max(Comparator.naturalOrder())
+                .orElse("");
+
+        for (Semester semester : semesters) {
+            String name = semester.partitionName();
+            if (name.compareTo(last) <= 0) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " REORGANIZE PARTITION " + MAX_PARTITION
+                    + " INTO (PARTITION " + name + " VALUES LESS THAN ('" + semester.next().firstDay() + "'), "
+                    + "PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+            log.info("Partición {} creada para el semestre {}", name, semester);
+        }
+    }
+
+    private boolean isMySql() {
+        String url = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+        DatabaseDriver driver = DatabaseDriver.fromJdbcUrl(url);
+        return driver == DatabaseDriver.MYSQL || driver == DatabaseDriver.MARIADB;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ambu.asistencias.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ambu.asistencias.dto.AttendanceDTO;
+import com.ambu.asistencias.dto.AttendanceFilter;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository.ArchivedRow;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exporta asistencias en CSV o NDJSON escribiendo directamente al stream de la respuesta.
+ * Las filas se leen con un cursor de solo avance y el contexto de persistencia se limpia
+ * cada {@link #CHUNK_SIZE} filas, así que la memoria usada no depende del tamaño de la exportación.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER =
+            "id,timestamp,type,socialServerId,socialServerEmail,socialServerName,parkId,parkName,photoPath";
+
+    private final AttendanceRepository attendanceRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        public static ExportFormat from(String format) {
+            for (ExportFormat value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void export(AttendanceFilter filter, ExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("Exportando asistencias en formato {} con filtro: {}", format, filter);
+        // Convertir el filtro antes del encabezado para no truncar la respuesta si es inválido
+        AttendanceType type = filter.attendanceType();
+        LocalDateTime from = filter.fromTimestamp();
+        LocalDateTime to = filter.toTimestamp();
+        write(() -> attendanceRepository.streamForExport(filter.getSocialServerId(), filter.getParkId(), type, from, to)
+                .map(this::mapToDto), format, outputStream);
+    }
+
+    /**
+     * Exporta las asistencias de semestres archivados para reportes históricos. Con {@code from} y
+     * {@code to} sólo se leen las particiones de esos semestres.
+     */
+    @Transactional(readOnly = true)
+    public void exportArchived(AttendanceFilter filter, ExportFormat format, OutputStream outputStream)
+            throws IOException {
+        log.info("Exportando asistencias archivadas en formato {} con filtro: {}", format, filter);
+        // Convertir el filtro antes del encabezado para no truncar la respuesta si es inválido
+        AttendanceType type = filter.attendanceType();
+        LocalDateTime from = filter.fromTimestamp();
+        LocalDateTime to = filter.toTimestamp();
+        write(() -> archivedAttendanceRepository.streamForExport(filter.getSocialServerId(), filter.getParkId(), type, from, to)
+                .map(this::mapToDto), format, outputStream);
+    }
+
+    private void write(Supplier<Stream<AttendanceDTO>> rows, ExportFormat format, OutputStream outputStream)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        ObjectWriter jsonWriter = objectMapper.writerFor(AttendanceDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            writer.flush();
+        }
+
+        long count = 0;
+        try (Stream<AttendanceDTO> stream = rows.get()) {
+            Iterator<AttendanceDTO> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                AttendanceDTO row = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    jsonWriter.writeValue(writer, row);
+                    writer.write('\n');
+                }
+
+                if (++count % CHUNK_SIZE == 0) {
+                    // Liberar las entidades ya escritas y enviar lo acumulado al cliente
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        log.info("Exportación terminada: {} asistencias", count);
+    }
+
+    private AttendanceDTO mapToDto(Attendance attendance) {
+        return AttendanceDTO.builder()
+                .id(attendance.getId())
+                .socialServerId(attendance.getSocialServer().getId())
+                .socialServerName(attendance.getSocialServer().getName())
+                .socialServerEmail(attendance.getSocialServer().getEmail())
+                .parkId(attendance.getPark().getId())
+                .parkName(attendance.getPark().getParkName())
+                .timestamp(attendance.getTimestamp())
+                .type(attendance.getType().name())
+                .photoPath(attendance.getPhotoPath())
+                .build();
+    }
+
+    private AttendanceDTO mapToDto(ArchivedRow row) {
+        return AttendanceDTO.builder()
+                .id(row.getId())
+                .socialServerId(row.getSocialServerId())
+                .socialServerName(row.getSocialServerName())
+                .socialServerEmail(row.getSocialServerEmail())
+                .parkId(row.getParkId())
+                .parkName(row.getParkName())
+                .timestamp(row.getTimestamp())
+                .type(row.getType().name())
+                .photoPath(row.getPhotoPath())
+                .build();
+    }
+
+    private void writeCsvRow(Writer writer, AttendanceDTO row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getTimestamp().toString());
+        writer.write(',');
+        writer.write(row.getType());
+        writer.write(',');
+        writer.write(String.valueOf(row.getSocialServerId()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getSocialServerEmail()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getSocialServerName()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getParkId()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getParkName()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getPhotoPath()));
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
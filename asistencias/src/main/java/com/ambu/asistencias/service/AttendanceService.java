@@ -1,32 +1,57 @@
 package com.ambu.asistencias.service;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ambu.asistencias.config.ReplicaRoutingDataSource;
+import com.ambu.asistencias.dto.AttendanceBatchItem;
+import com.ambu.asistencias.dto.AttendanceBatchItemResult;
+import com.ambu.asistencias.dto.AttendanceBatchResponse;
+import com.ambu.asistencias.dto.AttendanceDTO;
+import com.ambu.asistencias.dto.AttendanceFilter;
+import com.ambu.asistencias.dto.AttendancePageResponse;
 import com.ambu.asistencias.dto.AttendanceRequest;
 import com.ambu.asistencias.dto.AttendanceResponse;
+import com.ambu.asistencias.event.AttendanceRegisteredEvent;
+import com.ambu.asistencias.exception.InvalidAttendanceStateException;
 import com.ambu.asistencias.exception.ResourceNotFoundException;
 import com.ambu.asistencias.model.Attendance;
 import com.ambu.asistencias.model.Attendance.AttendanceType;
 import com.ambu.asistencias.model.Park;
 import com.ambu.asistencias.model.SocialServer;
+import com.ambu.asistencias.repository.AttendanceIdempotencyKeyRepository;
 import com.ambu.asistencias.repository.AttendanceRepository;
 import com.ambu.asistencias.repository.ParkRepository;
 import com.ambu.asistencias.repository.SocialServerRepository;
+import com.ambu.asistencias.service.AttendanceStateService.SessionState;
+import com.ambu.asistencias.service.PhotoStoreService.StoredPhoto;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,28 +64,74 @@ public class AttendanceService {
     private final AttendanceRepository attendanceRepository;
     private final SocialServerRepository socialServerRepository;
     private final ParkRepository parkRepository;
+    private final ServiceHoursService serviceHoursService;
+    private final ParkStatsService parkStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final PhotoStoreService photoStoreService;
+    private final AttendanceIdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyCache idempotencyCache;
+    private final AttendanceStateService attendanceStateService;
 
-    @Value("${app.upload.dir:uploads/photos}")
-    private String uploadDir;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
+    @Value("${app.attendance.batch.max-items:200}")
+    private int maxBatchItems;
+
+    @Value("${app.attendance.batch.max-age-hours:72}")
+    private long maxBatchAgeHours;
+
+    @Value("${app.attendance.batch.max-clock-skew-minutes:5}")
+    private long maxClockSkewMinutes;
 
     public AttendanceResponse registerAttendance(AttendanceRequest request) {
         return registerAttendance(request, null);
     }
 
-    public List<AttendanceResponse> getAllAttendances() {
-        List<Attendance> attendances = attendanceRepository.findAll();
-        return attendances.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public AttendancePageResponse getAttendances(AttendanceFilter filter) {
+        int size = resolvePageSize(filter.getSize());
+
+        LocalDateTime cursorTimestamp = null;
+        Long cursorId = null;
+        if (StringUtils.hasText(filter.getCursor())) {
+            String[] cursor = decodeCursor(filter.getCursor());
+            cursorTimestamp = LocalDateTime.parse(cursor[0]);
+            cursorId = Long.valueOf(cursor[1]);
+        }
+
+        // Se pide una fila extra para saber si existe una página siguiente sin hacer un COUNT
+        List<Attendance> attendances = attendanceRepository.findPage(
+                filter.getSocialServerId(), filter.getParkId(), filter.attendanceType(),
+                filter.fromTimestamp(), filter.toTimestamp(),
+                cursorTimestamp, cursorId, Limit.of(size + 1));
+
+        String nextCursor = null;
+        if (attendances.size() > size) {
+            attendances = attendances.subList(0, size);
+            nextCursor = encodeCursor(attendances.get(size - 1));
+        }
+
+        return AttendancePageResponse.builder()
+                .items(attendances.stream()
+                        .map(this::mapToResponse)
+                        .collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public AttendanceResponse getAttendanceById(Long id) {
-        Attendance attendance = attendanceRepository.findById(id)
+        Attendance attendance = attendanceRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No se encontró una asistencia con el ID: " + id));
         return mapToResponse(attendance);
     }
 
+    @Transactional(readOnly = true)
     public List<AttendanceResponse> getAttendancesBySocialServerId(Long socialServerId) {
         log.info("Obteniendo asistencias para servidor social con ID: {}", socialServerId);
         
@@ -74,67 +145,323 @@ public class AttendanceService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AttendanceResponse registerAttendance(AttendanceRequest request, MultipartFile photo) {
+        return registerAttendance(request, photo, null);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AttendanceResponse registerAttendance(AttendanceRequest request, MultipartFile photo, String idempotencyKey) {
+        return registerAttendance(request, () -> {
+            if (photo == null || photo.isEmpty()) {
+                throw new ResourceNotFoundException(
+                        "La foto de asistencia es obligatoria.");
+            }
+            return photoStoreService.store(photo);
+        }, idempotencyKey);
+    }
+
+    /**
+     * Registra una asistencia con su foto.
+     *
+     * {@code photo} guarda la foto en el almacén y se invoca después de validar el tipo, el servidor
+     * social y el parque, y antes de abrir la transacción, de modo que la conexión a la base de datos
+     * sólo se ocupa para las consultas y el insert. Si la petición se responde desde la llave de
+     * idempotencia no se invoca.
+     *
+     * Con {@code idempotencyKey} un reintento devuelve la respuesta original sin escribir otra foto
+     * ni insertar otra fila: primero se busca en memoria, luego en la tabla de llaves; si dos
+     * instancias registran la misma llave a la vez, la llave primaria (o la validación del estado
+     * contra el ledger) rechaza la segunda y se devuelve la asistencia de la primera. La llave queda
+     * ligada al folio, parque y tipo de la solicitud; reutilizarla con otros datos responde 422.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AttendanceResponse registerAttendance(AttendanceRequest request, Supplier<StoredPhoto> photo, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return register(request, photo, null);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "La Idempotency-Key debe tener entre 1 y " + MAX_IDEMPOTENCY_KEY_LENGTH + " caracteres");
+        }
+        String fingerprint = fingerprint(request);
+        return idempotencyCache.execute(idempotencyKey, fingerprint,
+                () -> findByIdempotencyKey(idempotencyKey, fingerprint),
+                () -> register(request, photo, new IdempotencyKey(idempotencyKey, fingerprint)));
+    }
+
+    /**
+     * Huella de los campos de la solicitud; la foto no se incluye porque un reintento se responde
+     * antes de leerla.
+     */
+    private String fingerprint(AttendanceRequest request) {
+        String type = StringUtils.hasText(request.getType()) ? request.getType().trim().toUpperCase() : "";
+        String payload = request.getId() + "|" + request.getParkId() + "|" + type;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record IdempotencyKey(String key, String fingerprint) {
+    }
+
+    private AttendanceResponse register(AttendanceRequest request, Supplier<StoredPhoto> photo, IdempotencyKey idempotencyKey) {
         log.info("Registrando asistencia para folio: {} y parque ID: {}", request.getId(), request.getParkId());
 
-        // Buscar SocialServer por id
-        SocialServer socialServer = socialServerRepository.findById(request.getId())
+        // Determinar el tipo de asistencia
+        AttendanceType attendanceType = determineAttendanceType(request.getType());
+
+        // Un folio o parque inexistente se rechaza antes de leer y escribir la foto. Se buscan una sola
+        // vez, normalmente en el caché de segundo nivel; un fallo de caché lee del primario para no
+        // rechazar un registro recién creado que la réplica aún no tiene
+        SocialServer socialServer = ReplicaRoutingDataSource.usePrimary(
+                        () -> socialServerRepository.findById(request.getId()))
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No se encontró servidor social por el folio: " + request.getId()));
-
-        // Buscar Park por ID
-        Park park = parkRepository.findById(request.getParkId())
+        Park park = ReplicaRoutingDataSource.usePrimary(() -> parkRepository.findById(request.getParkId()))
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No se encontró un parque con el ID: " + request.getParkId()));
 
-        // Determinar el tipo de asistencia
-        AttendanceType attendanceType = determineAttendanceType(request.getType());
+        // Guardar la foto fuera de la transacción
+        StoredPhoto storedPhoto = meterRegistry.timer("attendance.photo.write").record(photo);
 
-        // Manejar la subida de la foto (si existe)
-        String photoPath = "uploads/photos/default-photo.png";
-        if (photo == null || photo.isEmpty()) {
-            throw new ResourceNotFoundException(
-                        "La foto de asistencia es obligatoria.");
+        // Si la transacción falla el archivo queda sin referencias y lo elimina la limpieza del almacén
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            return attendanceStateService.register(request.getId(), attendanceType, timestamp ->
+                    meterRegistry.timer("attendance.register.transaction").record(() -> transactionTemplate.execute(
+                            status -> saveAttendance(socialServer, park, attendanceType, timestamp,
+                                    storedPhoto, idempotencyKey))));
+        } catch (DataIntegrityViolationException | InvalidAttendanceStateException e) {
+            // Otra instancia registró la misma llave primero: la llave primaria rechaza el insert o,
+            // si la otra ya confirmó, el ledger rechaza la transición repetida
+            AttendanceResponse original = idempotencyKey != null
+                    ? findByIdempotencyKey(idempotencyKey.key(), idempotencyKey.fingerprint())
+                    : null;
+            if (original == null) {
+                throw e;
+            }
+            log.info("Idempotency-Key {} ya registrada por otra petición, se devuelve la asistencia {}",
+                    idempotencyKey.key(), original.getId());
+            return original;
         }
-            try {
-                Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-                Files.createDirectories(uploadPath);
-
-                String originalFilename = StringUtils.cleanPath(photo.getOriginalFilename());
-                String extension = "";
-                int idx = originalFilename.lastIndexOf('.');
-                if (idx > 0) {
-                    extension = originalFilename.substring(idx);
-                }
-                String filename = "attendance-" + UUID.randomUUID() + extension;
-                
-                Path target = uploadPath.resolve(filename);
-
-                Files.copy(photo.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
 
-                // Save relative path
-                photoPath = uploadDir + "/" + filename;
-            } catch (IOException e) {
-                log.error("Error guardando la foto de asistencia", e);
-                throw new RuntimeException("No se pudo guardar la foto de asistencia", e);
-            }
-        
+    private AttendanceResponse findByIdempotencyKey(String idempotencyKey, String fingerprint) {
+        // Del primario: la llave pudo confirmarse hace milisegundos
+        return ReplicaRoutingDataSource.usePrimary(() -> idempotencyKeyRepository.findById(idempotencyKey)
+                .flatMap(key -> {
+                    IdempotencyCache.checkFingerprint(idempotencyKey, key.getPayloadHash(), fingerprint);
+                    return attendanceRepository.findWithDetailsById(key.getAttendanceId());
+                })
+                .map(this::mapToResponse)
+                .orElse(null));
+    }
 
+    private AttendanceResponse saveAttendance(SocialServer socialServer, Park park, AttendanceType attendanceType,
+                                              LocalDateTime timestamp, StoredPhoto storedPhoto, IdempotencyKey idempotencyKey) {
+        // El servidor social y el parque ya se buscaron antes de guardar la foto; si se eliminan
+        // mientras tanto, la llave foránea rechaza el insert
         // Crear y guardar la asistencia
         Attendance attendance = Attendance.builder()
                 .socialServer(socialServer)
                 .park(park)
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .type(attendanceType)
-                .photoPath(photoPath)
+                .photoPath(storedPhoto.getPath())
+                .statsEpoch(parkStatsService.currentEpoch())
                 .build();
 
         Attendance savedAttendance = attendanceRepository.save(attendance);
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.insert(idempotencyKey.key(), savedAttendance.getId(),
+                    idempotencyKey.fingerprint(), LocalDateTime.now());
+        }
+        recordRegistered(savedAttendance, storedPhoto);
         log.info("Asistencia registrada exitosamente con ID: {}", savedAttendance.getId());
 
         return mapToResponse(savedAttendance);
     }
 
+    /**
+     * Registra un lote de asistencias que un kiosco capturó sin conexión.
+     *
+     * Las fotos se guardan antes de abrir la transacción. Después, en una sola transacción, los
+     * servidores sociales y parques referenciados se leen con una consulta {@code IN} cada uno y las
+     * asistencias se insertan con batching JDBC. Cada elemento se valida por separado: los inválidos
+     * se reportan como {@code REJECTED} sin afectar al resto del lote.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AttendanceBatchResponse registerBatch(List<AttendanceBatchItem> items, Map<String, MultipartFile> photos) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("El lote no contiene asistencias");
+        }
+        if (items.size() > maxBatchItems) {
+            throw new IllegalArgumentException("El lote excede el máximo de " + maxBatchItems + " asistencias");
+        }
+        log.info("Registrando lote de {} asistencias", items.size());
+
+        AttendanceBatchItemResult[] results = new AttendanceBatchItemResult[items.size()];
+        List<PendingAttendance> pending = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < items.size(); i++) {
+            AttendanceBatchItem item = items.get(i);
+            try {
+                if (item.getId() == null || item.getParkId() == null) {
+                    throw new IllegalArgumentException("El folio y el ID del parque son obligatorios");
+                }
+                AttendanceType attendanceType = determineAttendanceType(item.getType());
+                LocalDateTime timestamp = resolveBatchTimestamp(item.getTimestamp(), now);
+                MultipartFile photo = item.getPhoto() != null ? photos.get(item.getPhoto()) : null;
+                if (photo == null || photo.isEmpty()) {
+                    throw new ResourceNotFoundException("La foto de asistencia es obligatoria.");
+                }
+                StoredPhoto storedPhoto = meterRegistry.timer("attendance.photo.write").record(() -> photoStoreService.store(photo));
+                pending.add(new PendingAttendance(i, item, attendanceType, timestamp, storedPhoto));
+            } catch (RuntimeException e) {
+                results[i] = rejected(i, item, e.getMessage());
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            try {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                meterRegistry.timer("attendance.batch.transaction").record(() ->
+                        transactionTemplate.executeWithoutResult(status -> saveBatch(pending, results)));
+            } catch (RuntimeException e) {
+                // Nada del lote quedó guardado; el kiosco debe reenviar estas asistencias
+                log.error("Error guardando el lote de asistencias", e);
+                for (PendingAttendance attendance : pending) {
+                    results[attendance.index] = rejected(attendance.index, attendance.item,
+                            "No se pudo guardar la asistencia, intente de nuevo");
+                }
+            }
+            // El lote cambió el ledger sin pasar por el estado en memoria
+            attendanceStateService.invalidate(pending.stream().map(attendance -> attendance.item.getId()).toList());
+        }
+
+        List<AttendanceBatchItemResult> resultList = List.of(results);
+        int created = (int) resultList.stream()
+                .filter(result -> AttendanceBatchItemResult.CREATED.equals(result.getStatus()))
+                .count();
+        log.info("Lote registrado: {} creadas, {} rechazadas", created, items.size() - created);
+        return AttendanceBatchResponse.builder()
+                .received(items.size())
+                .created(created)
+                .rejected(items.size() - created)
+                .results(resultList)
+                .build();
+    }
+
+    private void saveBatch(List<PendingAttendance> pending, AttendanceBatchItemResult[] results) {
+        Set<Long> socialServerIds = pending.stream().map(attendance -> attendance.item.getId()).collect(Collectors.toSet());
+        Set<Long> parkIds = pending.stream().map(attendance -> attendance.item.getParkId()).collect(Collectors.toSet());
+        Map<Long, SocialServer> socialServers = socialServerRepository.findAllById(socialServerIds).stream()
+                .collect(Collectors.toMap(SocialServer::getId, Function.identity()));
+        Map<Long, Park> parks = parkRepository.findAllById(parkIds).stream()
+                .collect(Collectors.toMap(Park::getId, Function.identity()));
+        Map<Long, SessionState> sessionStates = new HashMap<>(serviceHoursService.lockSessionStates(socialServerIds));
+        Long statsEpoch = parkStatsService.currentEpoch();
+
+        // Validar la secuencia de cada servidor en orden cronológico a partir de su ledger bloqueado
+        List<PendingAttendance> chronological = new ArrayList<>(pending);
+        chronological.sort(Comparator.comparing((PendingAttendance attendance) -> attendance.timestamp)
+                .thenComparing(attendance -> attendance.index));
+
+        List<PendingAttendance> accepted = new ArrayList<>();
+        for (PendingAttendance attendance : chronological) {
+            SocialServer socialServer = socialServers.get(attendance.item.getId());
+            Park park = parks.get(attendance.item.getParkId());
+            SessionState state = sessionStates.getOrDefault(attendance.item.getId(), SessionState.EMPTY);
+            if (socialServer == null) {
+                results[attendance.index] = rejected(attendance.index, attendance.item,
+                        "No se encontró servidor social por el folio: " + attendance.item.getId());
+            } else if (park == null) {
+                results[attendance.index] = rejected(attendance.index, attendance.item,
+                        "No se encontró un parque con el ID: " + attendance.item.getParkId());
+            } else {
+                try {
+                    attendanceStateService.validate(state, attendance.type, attendance.timestamp);
+                } catch (InvalidAttendanceStateException e) {
+                    results[attendance.index] = rejected(attendance.index, attendance.item, e.getMessage());
+                    continue;
+                }
+                sessionStates.put(attendance.item.getId(), state.next(attendance.type, attendance.timestamp));
+                attendance.attendance = Attendance.builder()
+                        .socialServer(socialServer)
+                        .park(park)
+                        .timestamp(attendance.timestamp)
+                        .type(attendance.type)
+                        .photoPath(attendance.storedPhoto.getPath())
+                        .statsEpoch(statsEpoch)
+                        .build();
+                accepted.add(attendance);
+            }
+        }
+
+        // Los inserts se envían juntos al hacer flush (hibernate.jdbc.batch_size)
+        attendanceRepository.saveAll(accepted.stream().map(attendance -> attendance.attendance).toList());
+        attendanceRepository.flush();
+
+        // accepted ya está en orden cronológico: el ledger empareja bien entradas y salidas
+        for (PendingAttendance attendance : accepted) {
+            recordRegistered(attendance.attendance, attendance.storedPhoto);
+            results[attendance.index] = AttendanceBatchItemResult.builder()
+                    .index(attendance.index)
+                    .clientId(attendance.item.getClientId())
+                    .status(AttendanceBatchItemResult.CREATED)
+                    .attendance(mapToResponse(attendance.attendance))
+                    .build();
+        }
+    }
+
+    /**
+     * Efectos de una asistencia recién insertada: referencia a la foto, ledger de horas,
+     * estadísticas diarias y el evento que se publica al confirmar la transacción.
+     */
+    private void recordRegistered(Attendance attendance, StoredPhoto storedPhoto) {
+        photoStoreService.acquire(storedPhoto);
+        Long sessionMinutes = serviceHoursService.recordAttendance(attendance);
+        parkStatsService.recordAttendance(attendance, sessionMinutes);
+        eventPublisher.publishEvent(new AttendanceRegisteredEvent(mapToDto(attendance)));
+    }
+
+    private LocalDateTime resolveBatchTimestamp(LocalDateTime timestamp, LocalDateTime now) {
+        if (timestamp == null) {
+            return now;
+        }
+        if (timestamp.isAfter(now.plusMinutes(maxClockSkewMinutes))) {
+            throw new IllegalArgumentException("La fecha de la asistencia está en el futuro: " + timestamp);
+        }
+        if (timestamp.isBefore(now.minusHours(maxBatchAgeHours))) {
+            throw new IllegalArgumentException("La asistencia es demasiado antigua para registrarse: " + timestamp);
+        }
+        return timestamp;
+    }
+
+    private AttendanceBatchItemResult rejected(int index, AttendanceBatchItem item, String message) {
+        return AttendanceBatchItemResult.builder()
+                .index(index)
+                .clientId(item.getClientId())
+                .status(AttendanceBatchItemResult.REJECTED)
+                .message(message)
+                .build();
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingAttendance {
+        private final int index;
+        private final AttendanceBatchItem item;
+        private final AttendanceType type;
+        private final LocalDateTime timestamp;
+        private final StoredPhoto storedPhoto;
+        private Attendance attendance;
+    }
+
     private AttendanceResponse mapToResponse(Attendance attendance) {
         String message = attendance.getType() == AttendanceType.CHECK_IN 
                 ? "Entrada registrada exitosamente" 
@@ -142,6 +469,7 @@ public class AttendanceService {
 
         return AttendanceResponse.builder()
                 .id(attendance.getId())
+                .socialServerId(attendance.getSocialServer().getId())
                 .email(attendance.getSocialServer().getEmail())
                 .socialServerName(attendance.getSocialServer().getName())
                 .parkName(attendance.getPark().getParkName())
@@ -152,6 +480,47 @@ public class AttendanceService {
                 .build();
     }
 
+    private AttendanceDTO mapToDto(Attendance attendance) {
+        return AttendanceDTO.builder()
+                .id(attendance.getId())
+                .socialServerId(attendance.getSocialServer().getId())
+                .socialServerName(attendance.getSocialServer().getName())
+                .socialServerEmail(attendance.getSocialServer().getEmail())
+                .parkId(attendance.getPark().getId())
+                .parkName(attendance.getPark().getParkName())
+                .timestamp(attendance.getTimestamp())
+                .type(attendance.getType().name())
+                .photoPath(attendance.getPhotoPath())
+                .build();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser al menos 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private String encodeCursor(Attendance attendance) {
+        String raw = attendance.getTimestamp() + "_" + attendance.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("_", 2);
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+
     private AttendanceType determineAttendanceType(String type) {
 
         if ("CHECK_IN".equals(type)) {
@@ -0,0 +1,162 @@
+package com.ambu.asistencias.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ambu.asistencias.config.ReplicaRoutingDataSource;
+import com.ambu.asistencias.exception.InvalidAttendanceStateException;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.ServiceHoursLedger;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Máquina de estados de asistencia por servidor social.
+ *
+ * Un CHECK_OUT sólo se acepta con una sesión abierta, un segundo CHECK_IN dentro de
+ * {@code app.attendance.duplicate-check-in-window-minutes} del anterior se rechaza (doble toque o
+ * dos dispositivos a la vez) y nunca se acepta una asistencia anterior a la última registrada.
+ *
+ * El estado de cada servidor social se guarda en memoria y se carga de su fila del ledger la
+ * primera vez, sin recorrer el historial; si rechaza una asistencia se recarga del ledger antes de
+ * responder, por si otra instancia la cambió. Los registros de un mismo servidor se serializan con un
+ * lock por franja, así que servidores distintos no se esperan entre sí. Dentro de la transacción
+ * el ledger vuelve a validar con su fila bloqueada, lo que cubre los registros de otras instancias.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceStateService {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final ServiceHoursLedgerRepository ledgerRepository;
+
+    private final Map<Long, SessionState> states = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks = Stream.generate(ReentrantLock::new)
+            .limit(LOCK_STRIPES).toArray(ReentrantLock[]::new);
+
+    @Value("${app.attendance.duplicate-check-in-window-minutes:10}")
+    private long duplicateCheckInWindowMinutes;
+
+    @Value("${app.hours.max-session-hours:12}")
+    private long maxSessionHours;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SessionState {
+        public static final SessionState EMPTY = new SessionState(null, null);
+
+        // Timestamp del CHECK_IN sin CHECK_OUT y de la última asistencia aplicada
+        private final LocalDateTime openCheckIn;
+        private final LocalDateTime lastAttendanceAt;
+
+        public static SessionState of(ServiceHoursLedger ledger) {
+            return new SessionState(ledger.getOpenCheckIn(), ledger.getLastAttendanceAt());
+        }
+
+        public SessionState next(AttendanceType type, LocalDateTime timestamp) {
+            return new SessionState(type == AttendanceType.CHECK_IN ? timestamp : null, timestamp);
+        }
+    }
+
+    /**
+     * Registra una asistencia en vivo de un servidor social. El timestamp se toma con el lock
+     * tomado, de modo que los registros de un servidor quedan en orden. {@code action} debe
+     * confirmar su transacción antes de regresar; sólo entonces se actualiza el estado.
+     */
+    public <T> T register(Long socialServerId, AttendanceType type, Function<LocalDateTime, T> action) {
+        ReentrantLock lock = locks[Math.floorMod(socialServerId.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            SessionState state = states.get(socialServerId);
+            boolean cached = state != null;
+            if (!cached) {
+                state = loadState(socialServerId);
+            }
+
+            LocalDateTime timestamp = LocalDateTime.now();
+            try {
+                validate(state, type, timestamp);
+            } catch (InvalidAttendanceStateException e) {
+                if (!cached) {
+                    throw e;
+                }
+                // El estado en memoria pudo quedar atrás si otra instancia registró después: antes de
+                // rechazar se vuelve a validar contra el ledger del primario
+                state = loadState(socialServerId);
+                validate(state, type, timestamp);
+            }
+            T result;
+            try {
+                result = action.apply(timestamp);
+            } catch (RuntimeException e) {
+                // Otra instancia pudo cambiar el ledger: se vuelve a cargar en el siguiente registro
+                states.remove(socialServerId);
+                throw e;
+            }
+            states.put(socialServerId, state.next(type, timestamp));
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SessionState loadState(Long socialServerId) {
+        SessionState state = ReplicaRoutingDataSource.usePrimary(() -> ledgerRepository.findById(socialServerId))
+                .map(SessionState::of).orElse(SessionState.EMPTY);
+        states.put(socialServerId, state);
+        return state;
+    }
+
+    /**
+     * Verifica que {@code type} sea una transición válida desde {@code state}.
+     *
+     * @throws InvalidAttendanceStateException si no lo es
+     */
+    public void validate(SessionState state, AttendanceType type, LocalDateTime timestamp) {
+        if (state.getLastAttendanceAt() != null && timestamp.isBefore(state.getLastAttendanceAt())) {
+            throw new InvalidAttendanceStateException(
+                    "La asistencia es anterior a la última registrada ("
+                    + state.getLastAttendanceAt().truncatedTo(ChronoUnit.SECONDS) + ")");
+        }
+
+        LocalDateTime openCheckIn = state.getOpenCheckIn();
+        // Una sesión más larga que el máximo es una salida olvidada y ya no cuenta como abierta
+        boolean open = openCheckIn != null && openCheckIn.plusHours(maxSessionHours).isAfter(timestamp);
+        if (type == AttendanceType.CHECK_OUT && !open) {
+            throw new InvalidAttendanceStateException("No hay una entrada abierta para registrar la salida");
+        }
+        if (type == AttendanceType.CHECK_IN && open
+                && openCheckIn.plusMinutes(duplicateCheckInWindowMinutes).isAfter(timestamp)) {
+            throw new InvalidAttendanceStateException("Ya se registró una entrada a las " + openCheckIn.toLocalTime().truncatedTo(ChronoUnit.MINUTES)
+                    + "; no se puede registrar otra en menos de " + duplicateCheckInWindowMinutes + " minutos");
+        }
+    }
+
+    /**
+     * Descarta el estado en memoria de estos servidores sociales; se vuelve a cargar del ledger
+     * en su siguiente registro. Se llama después de cambiar el ledger fuera de {@link #register}.
+     */
+    public void invalidate(Collection<Long> socialServerIds) {
+        socialServerIds.forEach(states::remove);
+    }
+
+    public void invalidateAll() {
+        log.debug("Descartando el estado en memoria de {} servidores sociales", states.size());
+        states.clear();
+    }
+}
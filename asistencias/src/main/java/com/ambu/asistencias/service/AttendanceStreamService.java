@@ -0,0 +1,160 @@
+package com.ambu.asistencias.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.ambu.asistencias.dto.AttendanceDTO;
+import com.ambu.asistencias.event.AttendanceRegisteredEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envía a los administradores conectados por Server-Sent Events cada asistencia confirmada.
+ *
+ * El hilo que registra la asistencia sólo encola el evento en el buffer acotado de cada suscriptor;
+ * el envío por la red lo hace un pool de despacho, así que un cliente lento no frena los registros.
+ * Si el buffer de un suscriptor se llena se descartan sus eventos pendientes y se le envía un evento
+ * {@code resync} para que vuelva a cargar la lista.
+ *
+ * Los eventos salen del {@link TransactionalEventListener} de esta instancia, así que el stream sólo
+ * trae las asistencias que registró la instancia que atiende la conexión. Con varias instancias
+ * detrás del balanceador, un administrador no ve en vivo las registradas en las demás: las obtiene
+ * al recargar la lista, lo que el cliente hace en cada reconexión. Para un stream completo habría
+ * que alimentarlo desde una fuente compartida.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceStreamService {
+
+    private static final String ATTENDANCE_EVENT = "attendance";
+    private static final String RESYNC_EVENT = "resync";
+    private static final String HEARTBEAT_EVENT = "heartbeat";
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+
+    @Value("${app.sse.buffer-size:100}")
+    private int bufferSize;
+
+    @Value("${app.sse.dispatcher-threads:2}")
+    private int dispatcherThreads;
+
+    @Value("${app.sse.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${app.sse.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    private ExecutorService dispatcher;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void start() {
+        dispatcher = Executors.newFixedThreadPool(dispatcherThreads);
+        heartbeat = Executors.newSingleThreadScheduledExecutor();
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Registra un nuevo suscriptor.
+     *
+     * @param parkId si no es null sólo se envían las asistencias de ese parque
+     */
+    public SseEmitter subscribe(Long parkId) {
+        long id = subscriberIds.incrementAndGet();
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(emitter, parkId, new ArrayBlockingQueue<>(bufferSize));
+
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(error -> subscribers.remove(id));
+        subscribers.put(id, subscriber);
+
+        log.info("Nuevo suscriptor al stream de asistencias (parque: {}), total: {}", parkId, subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onAttendanceRegistered(AttendanceRegisteredEvent event) {
+        AttendanceDTO attendance = event.getAttendance();
+        subscribers.forEach((id, subscriber) -> {
+            if (subscriber.parkId == null || subscriber.parkId.equals(attendance.getParkId())) {
+                enqueue(id, subscriber, SseEmitter.event()
+                        .name(ATTENDANCE_EVENT)
+                        .id(String.valueOf(attendance.getId()))
+                        .data(attendance));
+            }
+        });
+    }
+
+    private void sendHeartbeats() {
+        subscribers.forEach((id, subscriber) -> enqueue(id, subscriber,
+                SseEmitter.event().name(HEARTBEAT_EVENT).data("")));
+    }
+
+    private void enqueue(Long id, Subscriber subscriber, SseEventBuilder event) {
+        if (!subscriber.buffer.offer(event)) {
+            // Cliente demasiado lento: descartar lo pendiente y pedirle que recargue
+            subscriber.buffer.clear();
+            subscriber.buffer.offer(SseEmitter.event().name(RESYNC_EVENT).data(""));
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(id, subscriber));
+        }
+    }
+
+    private void drain(Long id, Subscriber subscriber) {
+        try {
+            SseEventBuilder event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                subscriber.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Suscriptor {} desconectado: {}", id, e.getMessage());
+            subscribers.remove(id);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Un evento pudo llegar entre el último poll y liberar la bandera
+        if (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(id, subscriber));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Long parkId;
+        private final Queue<SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,206 @@
+package com.ambu.asistencias.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+import com.ambu.asistencias.dto.AttendanceRequest;
+import com.ambu.asistencias.dto.AttendanceResponse;
+import com.ambu.asistencias.exception.ResourceNotFoundException;
+import com.ambu.asistencias.service.PhotoStoreService.StoredPhoto;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lee en streaming el multipart de {@code POST /asistencias}.
+ *
+ * Los campos se leen conforme llegan y la parte {@code photo} se entrega directamente al almacén
+ * ({@link PhotoStoreService#store(InputStream)}), que valida sus primeros bytes y corta la lectura
+ * al pasar de {@code app.upload.max-photo-size}: el contenedor nunca copia la foto a su directorio
+ * temporal ni la guarda en memoria. Si los campos {@code id}, {@code parkId} y {@code type} llegan
+ * antes que la foto, como los manda el kiosco, una asistencia inválida se rechaza sin leer la foto.
+ * Si la petición pasa del límite a mitad de la lectura, FileUpload lo reporta como
+ * {@link SizeException} y se responde 413 igual que con un {@code Content-Length} excedido.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceUploadService {
+
+    private static final String PHOTO_FIELD = "photo";
+    private static final int MAX_FIELD_LENGTH = 100;
+    private static final int MAX_PARTS = 10;
+    // Margen para los campos y los encabezados de las partes
+    private static final long FORM_OVERHEAD_BYTES = 64 * 1024;
+
+    private final AttendanceService attendanceService;
+    private final PhotoStoreService photoStoreService;
+
+    @Value("${app.upload.max-photo-size:10MB}")
+    private DataSize maxPhotoSize;
+
+    public AttendanceResponse register(HttpServletRequest request, String idempotencyKey) throws IOException {
+        // Una petición que ya procesó el contenedor (pruebas con MockMvc) se lee de sus partes
+        if (innermost(request) instanceof MultipartHttpServletRequest parsed) {
+            Map<String, String> fields = new HashMap<>();
+            parsed.getParameterMap().forEach((name, values) -> fields.put(name, values[0]));
+            return attendanceService.registerAttendance(toRequest(fields), parsed.getFile(PHOTO_FIELD), idempotencyKey);
+        }
+
+        long maxRequestBytes = maxPhotoSize.toBytes() + FORM_OVERHEAD_BYTES;
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            throw new MaxUploadSizeExceededException(maxPhotoSize.toBytes());
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setFileCountMax(MAX_PARTS);
+        upload.setSizeMax(maxRequestBytes);
+
+        Map<String, String> fields = new HashMap<>();
+        StoredPhoto storedPhoto = null;
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField()) {
+                    fields.put(item.getFieldName(), readField(item));
+                } else if (PHOTO_FIELD.equals(item.getFieldName())) {
+                    if (storedPhoto != null) {
+                        throw new IllegalArgumentException("Sólo se permite una foto por asistencia");
+                    }
+                    InputStream photo = new SizeLimitedStream(item.openStream());
+                    if (fields.containsKey("id") && fields.containsKey("parkId") && fields.containsKey("type")) {
+                        return attendanceService.registerAttendance(toRequest(fields),
+                                () -> photoStoreService.store(photo), idempotencyKey);
+                    }
+                    // La foto llegó antes que los campos: se guarda y se sigue leyendo
+                    storedPhoto = photoStoreService.store(photo);
+                }
+            }
+        } catch (FileUploadException e) {
+            if (isSizeLimit(e)) {
+                throw tooLarge(e);
+            }
+            log.warn("Multipart de asistencia inválido: {}", e.getMessage());
+            throw new IllegalArgumentException("La solicitud multipart no es válida: " + e.getMessage());
+        } catch (IOException e) {
+            // El límite también puede alcanzarse al leer un campo o al saltar una parte
+            if (isSizeLimit(e)) {
+                throw tooLarge(e);
+            }
+            throw e;
+        }
+
+        StoredPhoto photo = storedPhoto;
+        return attendanceService.registerAttendance(toRequest(fields), () -> {
+            if (photo == null) {
+                throw new ResourceNotFoundException("La foto de asistencia es obligatoria.");
+            }
+            return photo;
+        }, idempotencyKey);
+    }
+
+    private boolean isSizeLimit(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SizeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MaxUploadSizeExceededException tooLarge(Throwable e) {
+        log.warn("Multipart de asistencia excede el tamaño máximo: {}", e.getMessage());
+        return new MaxUploadSizeExceededException(maxPhotoSize.toBytes(), e);
+    }
+
+    /**
+     * Convierte el límite de FileUpload alcanzado al leer la foto en 413; el almacén trata
+     * cualquier otra {@link IOException} como error al guardar.
+     */
+    private class SizeLimitedStream extends FilterInputStream {
+
+        SizeLimitedStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                if (isSizeLimit(e)) {
+                    throw tooLarge(e);
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                if (isSizeLimit(e)) {
+                    throw tooLarge(e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private String readField(FileItemStream item) throws IOException {
+        try (InputStream input = item.openStream()) {
+            byte[] value = input.readNBytes(MAX_FIELD_LENGTH + 1);
+            if (value.length > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("El campo " + item.getFieldName() + " es demasiado largo");
+            }
+            return new String(value, StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    private AttendanceRequest toRequest(Map<String, String> fields) {
+        return AttendanceRequest.builder()
+                .id(parseId(fields.get("id"), "El folio es obligatorio"))
+                .parkId(parseId(fields.get("parkId"), "El ID del parque es obligatorio"))
+                .type(fields.get("type"))
+                .build();
+    }
+
+    private Long parseId(String value, String requiredMessage) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(requiredMessage);
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido: " + value);
+        }
+    }
+
+    private ServletRequest innermost(ServletRequest request) {
+        while (request instanceof ServletRequestWrapper wrapper) {
+            request = wrapper.getRequest();
+        }
+        return request;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ambu.asistencias.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ambu.asistencias.dto.AttendanceResponse;
+import com.ambu.asistencias.exception.IdempotencyKeyMismatchException;
+import com.ambu.asistencias.exception.ResourceAlreadyExistsException;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Respuestas recientes por Idempotency-Key y peticiones en curso con la misma llave.
+ *
+ * Los reintentos inmediatos se responden desde un LRU en memoria de {@code app.idempotency.cache-size}
+ * entradas. Si un duplicado llega mientras la petición original sigue en proceso, espera su resultado
+ * en lugar de escribir otra foto. La tabla {@code attendance_idempotency_keys} es la fuente durable;
+ * este caché sólo evita consultarla. Cada llave va con la huella de su solicitud: si un reintento
+ * trae otra, se rechaza con {@link IdempotencyKeyMismatchException}.
+ */
+@Service
+@Slf4j
+public class IdempotencyCache {
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private Map<String, Entry> recent;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    @PostConstruct
+    void init() {
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la respuesta ya registrada para la llave o ejecuta {@code action} una sola vez.
+     *
+     * @param fingerprint huella de la solicitud; debe coincidir con la de la petición original
+     * @param stored busca la respuesta durable; devuelve null si la llave no se ha usado
+     * @throws IdempotencyKeyMismatchException si la llave ya se usó con otra solicitud
+     */
+    public AttendanceResponse execute(String key, String fingerprint, Supplier<AttendanceResponse> stored,
+                                      Supplier<AttendanceResponse> action) {
+        Entry cached = get(key);
+        if (cached != null) {
+            checkFingerprint(key, cached.fingerprint(), fingerprint);
+            log.info("Reintento con Idempotency-Key {} respondido desde caché", key);
+            return cached.response();
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            checkFingerprint(key, existing.fingerprint(), fingerprint);
+            log.info("Petición duplicada con Idempotency-Key {} en curso, esperando su resultado", key);
+            return await(key, existing.result());
+        }
+
+        try {
+            AttendanceResponse response = stored.get();
+            if (response == null) {
+                response = action.get();
+            }
+            put(key, new Entry(fingerprint, response));
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * @throws IdempotencyKeyMismatchException si {@code actual} no es la huella registrada para la
+     *         llave; una llave registrada sin huella acepta cualquiera
+     */
+    public static void checkFingerprint(String key, String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException(
+                    "La Idempotency-Key ya se usó con una solicitud distinta: " + key);
+        }
+    }
+
+    private AttendanceResponse await(String key, CompletableFuture<AttendanceResponse> original) {
+        try {
+            return original.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la espera de la petición original", e);
+        } catch (TimeoutException e) {
+            throw new ResourceAlreadyExistsException(
+                    "La solicitud con esta Idempotency-Key aún está en proceso: " + key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error en la petición original", e.getCause());
+        }
+    }
+
+    private synchronized Entry get(String key) {
+        return recent.get(key);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        recent.put(key, entry);
+    }
+
+    private record Entry(String fingerprint, AttendanceResponse response) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<AttendanceResponse> result) {
+    }
+}
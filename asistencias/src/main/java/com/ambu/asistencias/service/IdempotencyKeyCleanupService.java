@@ -0,0 +1,93 @@
+package com.ambu.asistencias.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.repository.AttendanceIdempotencyKeyRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Borra cada {@code app.idempotency.cleanup-minutes} las Idempotency-Key con más de
+ * {@code app.idempotency.retention-hours}, en bloques de {@code app.idempotency.cleanup-batch-size}
+ * con una transacción cada uno. La retención debe cubrir el tiempo durante el que un kiosco puede
+ * reintentar; por defecto es la misma antigüedad máxima que acepta el registro de lotes. Con
+ * varias instancias todas limpian y los bloques que se cruzan simplemente borran menos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyCleanupService {
+
+    private final AttendanceIdempotencyKeyRepository idempotencyKeyRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.idempotency.retention-hours:72}")
+    private long retentionHours;
+
+    @Value("${app.idempotency.cleanup-minutes:60}")
+    private long cleanupMinutes;
+
+    @Value("${app.idempotency.cleanup-batch-size:1000}")
+    private int batchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-key-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return número de llaves borradas
+     */
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int deleted = 0;
+        for (;;) {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<String> keys = idempotencyKeyRepository.findKeysCreatedBefore(cutoff, Limit.of(batchSize));
+                return keys.isEmpty() ? 0 : idempotencyKeyRepository.deleteByKeyIn(keys);
+            });
+            if (batch == null || batch == 0) {
+                break;
+            }
+            deleted += batch;
+        }
+        if (deleted > 0) {
+            log.info("Idempotency-Key vencidas borradas: {} (anteriores a {})", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    private void purgeQuietly() {
+        try {
+            purgeExpired();
+        } catch (RuntimeException e) {
+            log.error("Error borrando las Idempotency-Key vencidas", e);
+        }
+    }
+}
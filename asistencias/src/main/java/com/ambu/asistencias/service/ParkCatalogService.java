@@ -0,0 +1,126 @@
+package com.ambu.asistencias.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ambu.asistencias.config.ReplicaRoutingDataSource;
+import com.ambu.asistencias.dto.ParkDTO;
+import com.ambu.asistencias.repository.ParkRepository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catálogo de parques en memoria para {@code GET /parques}.
+ *
+ * Se guarda una copia inmutable del catálogo con su versión y un ETag calculado sobre su
+ * contenido; las lecturas no tocan la base de datos. {@link ParkService} llama a
+ * {@link #invalidate()} al crear, actualizar o eliminar un parque y la siguiente lectura carga
+ * una versión nueva. Una copia que se estaba cargando mientras se invalidaba queda obsoleta y no
+ * se vuelve a servir.
+ *
+ * La invalidación sólo llega a esta instancia: los cambios hechos en otra se ven al vencer la copia,
+ * a los {@code app.parks.catalog.ttl-seconds} de cargarla. Si el contenido no cambió, la copia nueva
+ * conserva el mismo ETag.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ParkCatalogService {
+
+    private final ParkRepository parkRepository;
+
+    private final AtomicLong version = new AtomicLong(1);
+    private volatile Snapshot snapshot;
+
+    @Value("${app.parks.catalog.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+        private final long version;
+        private final List<ParkDTO> parks;
+        // ETag fuerte: cambia con el contenido, aun si la versión se reinicia al arrancar
+        private final String etag;
+        // System.nanoTime() al cargarla
+        private final long loadedAt;
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (isCurrent(current)) {
+            return current;
+        }
+        return load();
+    }
+
+    /**
+     * Descarta el catálogo en memoria. Dentro de una transacción surte efecto al confirmarla,
+     * para que la siguiente lectura vea el cambio.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    private boolean isCurrent(Snapshot current) {
+        return current != null && current.getVersion() == version.get()
+                && System.nanoTime() - current.getLoadedAt() < TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private synchronized Snapshot load() {
+        if (isCurrent(snapshot)) {
+            return snapshot;
+        }
+        long current = version.get();
+
+        // Del primario: una réplica atrasada guardaría el catálogo anterior bajo la versión nueva
+        List<ParkDTO> parks = ReplicaRoutingDataSource.usePrimary(() -> parkRepository.findAll(Sort.by("id"))).stream()
+                .map(park -> ParkDTO.builder()
+                        .id(park.getId())
+                        .parkName(park.getParkName())
+                        .abbreviation(park.getAbbreviation())
+                        .build())
+                .toList();
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(current, parks, etagOf(parks), System.nanoTime());
+        if (previous == null || !previous.getEtag().equals(snapshot.getEtag())) {
+            log.info("Catálogo de parques cargado: versión {}, {} parques", current, parks.size());
+        }
+        return snapshot;
+    }
+
+    private String etagOf(List<ParkDTO> parks) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (ParkDTO park : parks) {
+                digest.update((park.getId() + "\u0000" + park.getParkName() + "\u0000" + park.getAbbreviation() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -18,7 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 public class ParkService {
 
     private final ParkRepository parkRepository;
+    private final ParkCatalogService parkCatalogService;
 
+    @Transactional(readOnly = true)
     public ParkDTO getParkById(Long id) {
         Park park = parkRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -54,6 +56,7 @@ public class ParkService {
                 .build();
 
         Park savedPark = parkRepository.save(park);
+        parkCatalogService.invalidate();
         log.info("Parque creado exitosamente con ID: {}", savedPark.getId());
 
         // Construir respuesta
@@ -94,6 +97,7 @@ public class ParkService {
         park.setAbbreviation(request.getAbbreviation());
 
         Park updatedPark = parkRepository.save(park);
+        parkCatalogService.invalidate();
         log.info("Parque actualizado exitosamente con ID: {}", updatedPark.getId());
 
         return ParkDTO.builder()
@@ -118,6 +122,7 @@ public class ParkService {
         }
 
         parkRepository.delete(park);
+        parkCatalogService.invalidate();
         log.info("Parque eliminado exitosamente con ID: {}", id);
     }
 }
@@ -0,0 +1,246 @@
+package com.ambu.asistencias.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.dto.ParkDailyStatsResponse;
+import com.ambu.asistencias.dto.StatsBackfillResponse;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.ParkDailyServer;
+import com.ambu.asistencias.model.ParkDailyStats;
+import com.ambu.asistencias.model.ParkStatsEpoch;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository.AttendanceRow;
+import com.ambu.asistencias.repository.ParkDailyStatsRepository;
+import com.ambu.asistencias.repository.ParkDailyStatsRepository.DailyStatsView;
+import com.ambu.asistencias.repository.ParkStatsEpochRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estadísticas diarias por parque (entradas, salidas, servidores distintos y duración de sesiones).
+ *
+ * Los contadores sólo se suman, tanto al registrar una asistencia como en el backfill, por lo que el
+ * backfill puede correr mientras se siguen registrando asistencias. Cada asistencia guarda la
+ * generación de estadísticas vigente al registrarse ({@link ParkStatsEpoch}); el backfill la
+ * incrementa en la misma transacción que borra las estadísticas y sólo suma las asistencias de
+ * generaciones anteriores, porque las demás ya se contaron en línea. Los ids no sirven de corte:
+ * con asignación por bloques, una instancia puede confirmar después un id menor.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ParkStatsService {
+
+    private final ParkDailyStatsRepository statsRepository;
+    private final ParkStatsEpochRepository epochRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final ServiceHoursService serviceHoursService;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final Comparator<AttendanceRow> CHRONOLOGICAL =
+            Comparator.comparing(AttendanceRow::getTimestamp).thenComparing(AttendanceRow::getId);
+
+    @Value("${app.stats.backfill.chunk-size:5000}")
+    private int backfillChunkSize;
+
+    /**
+     * Generación de estadísticas para las asistencias que se van a registrar en esta transacción.
+     * Toma un lock compartido hasta confirmar, así que el backfill espera a que terminen y ninguna
+     * queda con una generación ya reconstruida. Debe llamarse antes de {@link #recordAttendance}.
+     */
+    public Long currentEpoch() {
+        return epochRepository.findForShare().getEpoch();
+    }
+
+    /**
+     * Suma una asistencia recién registrada a la estadística de su parque y día.
+     *
+     * @param sessionMinutes minutos de la sesión que cerró la asistencia, o null si no cerró ninguna
+     */
+    public void recordAttendance(Attendance attendance, Long sessionMinutes) {
+        Long parkId = attendance.getPark().getId();
+        LocalDate day = attendance.getTimestamp().toLocalDate();
+        boolean checkIn = attendance.getType() == AttendanceType.CHECK_IN;
+
+        int newServer = statsRepository.markServerPresent(parkId, day, attendance.getSocialServer().getId());
+        statsRepository.increment(parkId, day,
+                checkIn ? 1 : 0,
+                checkIn ? 0 : 1,
+                newServer,
+                sessionMinutes != null ? 1 : 0,
+                sessionMinutes != null ? sessionMinutes : 0);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ParkDailyStatsResponse> getDailyStats(LocalDate from, LocalDate to, Long parkId) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior o igual a la fecha final");
+        }
+        return statsRepository.findDashboard(from, to, parkId).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reconstruye las estadísticas desde las asistencias, archivadas incluidas, recorriéndolas en
+     * orden cronológico por (timestamp, id): cada bloque lee las siguientes filas de las dos tablas y
+     * aplica las que quedan antes del final de la más corta. Cada bloque se lee y se aplica en su
+     * propia transacción; el estado de sesiones abiertas se conserva entre bloques para emparejar
+     * entradas y salidas que caen en bloques distintos.
+     *
+     * El borrado y el cambio de generación van en una sola transacción con la fila de generación
+     * bloqueada: espera a los registros en curso y los siguientes ya se cuentan en la nueva.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StatsBackfillResponse backfill() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Long epoch = transactionTemplate.execute(status -> {
+            ParkStatsEpoch current = epochRepository.findForUpdate();
+            statsRepository.deleteAllInBatch();
+            statsRepository.deleteAllServers();
+            current.setEpoch(current.getEpoch() + 1);
+            return current.getEpoch();
+        });
+
+        log.info("Reconstruyendo estadísticas diarias anteriores a la generación {}", epoch);
+
+        Map<Long, LocalDateTime> openCheckIns = new HashMap<>();
+        AttendanceRow last = null;
+        long attendances = 0;
+        int chunks = 0;
+        for (;;) {
+            AttendanceRow cursor = last;
+            List<AttendanceRow> applied = transactionTemplate.execute(status -> {
+                LocalDateTime afterTimestamp = cursor != null ? cursor.getTimestamp() : null;
+                Long afterId = cursor != null ? cursor.getId() : null;
+                List<AttendanceRow> archived = archivedAttendanceRepository.findRowsBeforeEpoch(
+                        epoch, afterTimestamp, afterId, Limit.of(backfillChunkSize));
+                List<AttendanceRow> current = attendanceRepository.findRowsBeforeEpoch(
+                        epoch, afterTimestamp, afterId, Limit.of(backfillChunkSize));
+
+                // Una tabla con el bloque lleno puede tener filas anteriores a las siguientes de la otra
+                AttendanceRow bound = null;
+                if (archived.size() == backfillChunkSize) {
+                    bound = archived.get(archived.size() - 1);
+                }
+                if (current.size() == backfillChunkSize
+                        && (bound == null || CHRONOLOGICAL.compare(current.get(current.size() - 1), bound) < 0)) {
+                    bound = current.get(current.size() - 1);
+                }
+
+                List<AttendanceRow> rows = new ArrayList<>(archived);
+                rows.addAll(current);
+                rows.sort(CHRONOLOGICAL);
+                if (bound != null) {
+                    AttendanceRow limit = bound;
+                    rows.removeIf(row -> CHRONOLOGICAL.compare(row, limit) > 0);
+                }
+                applyChunk(rows, openCheckIns);
+                return rows;
+            });
+            if (applied == null || applied.isEmpty()) {
+                break;
+            }
+            attendances += applied.size();
+            last = applied.get(applied.size() - 1);
+            chunks++;
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Estadísticas reconstruidas: {} asistencias en {} bloques, {} ms", attendances, chunks, elapsed);
+        return StatsBackfillResponse.builder()
+                .attendances(attendances)
+                .chunks(chunks)
+                .elapsedMillis(elapsed)
+                .message("Estadísticas reconstruidas exitosamente")
+                .build();
+    }
+
+    private void applyChunk(List<AttendanceRow> rows, Map<Long, LocalDateTime> openCheckIns) {
+        Map<ParkDailyStats.Key, ParkDailyStats> deltas = new HashMap<>();
+        Set<ParkDailyServer.Key> servers = new HashSet<>();
+
+        for (AttendanceRow row : rows) {
+            LocalDate day = row.getTimestamp().toLocalDate();
+            ParkDailyStats delta = deltas.computeIfAbsent(new ParkDailyStats.Key(row.getParkId(), day),
+                    key -> ParkDailyStats.builder()
+                            .parkId(key.getParkId())
+                            .statDate(key.getStatDate())
+                            .checkIns(0L)
+                            .checkOuts(0L)
+                            .distinctServers(0L)
+                            .completedSessions(0L)
+                            .sessionMinutes(0L)
+                            .build());
+
+            if (row.getType() == AttendanceType.CHECK_IN) {
+                delta.setCheckIns(delta.getCheckIns() + 1);
+                openCheckIns.put(row.getSocialServerId(), row.getTimestamp());
+            } else {
+                delta.setCheckOuts(delta.getCheckOuts() + 1);
+                Long minutes = serviceHoursService.sessionMinutes(
+                        openCheckIns.remove(row.getSocialServerId()), row.getTimestamp());
+                if (minutes != null) {
+                    delta.setCompletedSessions(delta.getCompletedSessions() + 1);
+                    delta.setSessionMinutes(delta.getSessionMinutes() + minutes);
+                }
+            }
+
+            servers.add(new ParkDailyServer.Key(row.getParkId(), day, row.getSocialServerId()));
+        }
+
+        for (ParkDailyServer.Key server : servers) {
+            int newServer = statsRepository.markServerPresent(
+                    server.getParkId(), server.getStatDate(), server.getSocialServerId());
+            ParkDailyStats delta = deltas.get(new ParkDailyStats.Key(server.getParkId(), server.getStatDate()));
+            delta.setDistinctServers(delta.getDistinctServers() + newServer);
+        }
+
+        for (ParkDailyStats delta : deltas.values()) {
+            statsRepository.increment(delta.getParkId(), delta.getStatDate(),
+                    delta.getCheckIns(), delta.getCheckOuts(), delta.getDistinctServers(),
+                    delta.getCompletedSessions(), delta.getSessionMinutes());
+        }
+    }
+
+    private ParkDailyStatsResponse mapToResponse(DailyStatsView view) {
+        Double averageSessionMinutes = view.getCompletedSessions() > 0
+                ? (double) view.getSessionMinutes() / view.getCompletedSessions()
+                : null;
+
+        return ParkDailyStatsResponse.builder()
+                .parkId(view.getParkId())
+                .parkName(view.getParkName())
+                .date(view.getStatDate())
+                .checkIns(view.getCheckIns())
+                .checkOuts(view.getCheckOuts())
+                .distinctServers(view.getDistinctServers())
+                .completedSessions(view.getCompletedSessions())
+                .averageSessionMinutes(averageSessionMinutes)
+                .build();
+    }
+}
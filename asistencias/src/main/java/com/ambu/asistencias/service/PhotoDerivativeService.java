@@ -0,0 +1,212 @@
+package com.ambu.asistencias.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ambu.asistencias.exception.ResourceNotFoundException;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resuelve las variantes de tamaño de una foto de asistencia.
+ *
+ * {@code full} es el archivo original; {@code thumb} usa la miniatura generada al subir la foto
+ * cuando existe. Las demás variantes se generan la primera vez que se piden y se guardan en
+ * {@code app.photos.cache.dir}, un caché en disco acotado a {@code app.photos.cache.max-bytes}
+ * que descarta primero las variantes usadas hace más tiempo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoDerivativeService {
+
+    private final PhotoProcessingService photoProcessingService;
+
+    // Variantes en caché y su tamaño en bytes, en orden de último acceso
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, Object> generating = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    @Value("${app.upload.dir:uploads/photos}")
+    private String uploadDir;
+
+    @Value("${app.photos.cache.dir:uploads/cache}")
+    private String cacheDir;
+
+    @Value("${app.photos.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${app.photos.medium-dimension:800}")
+    private int mediumDimension;
+
+    @Value("${app.photos.thumbnail-dimension:240}")
+    private int thumbnailDimension;
+
+    private Path uploadPath;
+    private Path cachePath;
+
+    public enum PhotoSize {
+        THUMB, MEDIUM, FULL;
+
+        public static PhotoSize from(String size) {
+            for (PhotoSize value : values()) {
+                if (value.name().equalsIgnoreCase(size)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Tamaño de foto no soportado: " + size);
+        }
+    }
+
+    @PostConstruct
+    void loadCache() throws IOException {
+        uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        cachePath = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(cachePath);
+
+        // Reconstruir el orden LRU con la fecha de modificación de lo que quedó en disco
+        List<Path> cached;
+        try (Stream<Path> files = Files.list(cachePath)) {
+            cached = files.filter(file -> file.getFileName().toString().endsWith(PhotoProcessingService.PHOTO_EXTENSION))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .collect(Collectors.toList());
+        }
+        synchronized (this) {
+            for (Path file : cached) {
+                long size = Files.size(file);
+                entries.put(file, size);
+                totalBytes += size;
+            }
+            evict();
+        }
+        log.info("Caché de variantes de fotos: {} archivos, {} bytes", entries.size(), totalBytes);
+    }
+
+    /**
+     * Devuelve el archivo a servir para la foto {@code photoPath} en el tamaño pedido.
+     * Si la foto no se puede decodificar (formato no soportado) se devuelve el original.
+     */
+    public Path resolve(String photoPath, PhotoSize size) throws IOException {
+        Path original = resolveOriginal(photoPath);
+        if (size == PhotoSize.FULL) {
+            return original;
+        }
+        if (size == PhotoSize.THUMB) {
+            Path thumbnail = PhotoProcessingService.thumbnailPath(original);
+            if (Files.isReadable(thumbnail)) {
+                return thumbnail;
+            }
+        }
+
+        Path derivative = cachePath.resolve(cacheKey(original, size));
+        if (touch(derivative)) {
+            return derivative;
+        }
+
+        // Una sola generación por variante aunque lleguen varias peticiones a la vez
+        Object lock = generating.computeIfAbsent(derivative, key -> new Object());
+        synchronized (lock) {
+            try {
+                if (touch(derivative)) {
+                    return derivative;
+                }
+                int bound = size == PhotoSize.THUMB ? thumbnailDimension : mediumDimension;
+                if (!photoProcessingService.render(original, derivative, bound)) {
+                    return original;
+                }
+                record(derivative, Files.size(derivative));
+                return derivative;
+            } finally {
+                generating.remove(derivative);
+            }
+        }
+    }
+
+    private Path resolveOriginal(String photoPath) {
+        Path original = Paths.get(photoPath).toAbsolutePath().normalize();
+        if (!original.startsWith(uploadPath)) {
+            log.warn("Intento de acceso a ruta fuera del directorio permitido: {}", original);
+            throw new ResourceNotFoundException("Ruta de foto no permitida");
+        }
+        if (!Files.isReadable(original)) {
+            log.warn("Foto no encontrada o no accesible: {}", original);
+            throw new ResourceNotFoundException("Foto no encontrada: " + photoPath);
+        }
+        return original;
+    }
+
+    private synchronized boolean touch(Path derivative) {
+        if (entries.get(derivative) == null) {
+            return false;
+        }
+        if (Files.exists(derivative)) {
+            return true;
+        }
+        // Alguien lo borró del disco: olvidarlo y volver a generarlo
+        totalBytes -= entries.remove(derivative);
+        return false;
+    }
+
+    private synchronized void record(Path derivative, long size) {
+        Long previous = entries.put(derivative, size);
+        totalBytes += size - (previous != null ? previous : 0L);
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+        // Nunca se descarta la variante recién generada (la última del orden de acceso)
+        while (totalBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<Path, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            deleteQuietly(eldest.getKey());
+        }
+    }
+
+    private String cacheKey(Path original, PhotoSize size) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(uploadPath.relativize(original).toString().getBytes(StandardCharsets.UTF_8));
+            return size.name().toLowerCase() + "-" + HexFormat.of().formatHex(hash, 0, 16)
+                    + PhotoProcessingService.PHOTO_EXTENSION;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar la variante {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.ambu.asistencias.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reduce y recomprime las fotos de asistencia al subirlas.
+ *
+ * La imagen se decodifica, submuestreada si pasa de {@code app.photos.max-decoded-pixels} para no
+ * cargar completa en memoria una foto de muchos megapíxeles, se rota según la orientación EXIF, se
+ * acota a {@code app.photos.max-dimension} y se guarda como JPEG progresivo sin metadatos, junto
+ * con una miniatura. El trabajo corre en un pool acotado ({@code app.photos.workers} hilos y una cola de
+ * {@code app.photos.queue-capacity}); si el pool está saturado la subida se rechaza de inmediato
+ * en lugar de ocupar más CPU de los hilos de petición.
+ */
+@Service
+@Slf4j
+public class PhotoProcessingService {
+
+    public static final String PHOTO_EXTENSION = ".jpg";
+    public static final String THUMBNAIL_SUFFIX = "-thumb";
+
+    private static final int EXIF_SCAN_BYTES = 64 * 1024;
+
+    @Value("${app.photos.max-dimension:1600}")
+    private int maxDimension;
+
+    @Value("${app.photos.max-decoded-pixels:16000000}")
+    private long maxDecodedPixels;
+
+    @Value("${app.photos.thumbnail-dimension:240}")
+    private int thumbnailDimension;
+
+    @Value("${app.photos.quality:0.8}")
+    private float quality;
+
+    @Value("${app.photos.workers:0}")
+    private int workers;
+
+    @Value("${app.photos.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.photos.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Ruta de la miniatura que corresponde a una foto procesada.
+     */
+    public static Path thumbnailPath(Path photo) {
+        String filename = photo.getFileName().toString();
+        int idx = filename.lastIndexOf('.');
+        String base = idx > 0 ? filename.substring(0, idx) : filename;
+        return photo.resolveSibling(base + THUMBNAIL_SUFFIX + PHOTO_EXTENSION);
+    }
+
+    /**
+     * Procesa {@code source} y escribe la foto final en {@code target} y su miniatura junto a ella.
+     * Ambos archivos se escriben primero como temporales y se mueven atómicamente a su lugar.
+     *
+     * @return false si la imagen no se pudo decodificar (formato no soportado); en ese caso no se
+     *         escribe nada y el llamador decide qué hacer con el original
+     * @throws java.util.concurrent.RejectedExecutionException si el pool de procesamiento está lleno
+     */
+    public boolean process(Path source, Path target) throws IOException {
+        return await(executor.submit(() -> processNow(source, target)));
+    }
+
+    /**
+     * Genera en {@code target} una versión de {@code source} cuyo lado mayor no excede
+     * {@code bound}, con el mismo formato y en el mismo pool que las fotos subidas.
+     *
+     * @return false si la imagen no se pudo decodificar
+     * @throws java.util.concurrent.RejectedExecutionException si el pool de procesamiento está lleno
+     */
+    public boolean render(Path source, Path target, int bound) throws IOException {
+        return await(executor.submit(() -> renderNow(source, target, bound)));
+    }
+
+    private boolean await(Future<Boolean> result) throws IOException {
+        try {
+            return result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpió el procesamiento de la foto", e);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new IOException("El procesamiento de la foto excedió el tiempo límite", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error procesando la foto", e.getCause());
+        }
+    }
+
+    private boolean processNow(Path source, Path target) throws IOException {
+        BufferedImage image = decode(source, maxDimension);
+        if (image == null) {
+            return false;
+        }
+
+        image = applyOrientation(image, readExifOrientation(source));
+        BufferedImage photo = scaleToFit(image, maxDimension);
+        BufferedImage thumbnail = scaleToFit(photo, thumbnailDimension);
+
+        Path thumbnailTarget = thumbnailPath(target);
+        writeAtomically(photo, target);
+        try {
+            writeAtomically(thumbnail, thumbnailTarget);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        log.debug("Foto procesada: {}x{} -> {}x{}", image.getWidth(), image.getHeight(),
+                photo.getWidth(), photo.getHeight());
+        return true;
+    }
+
+    private boolean renderNow(Path source, Path target, int bound) throws IOException {
+        BufferedImage image = decode(source, bound);
+        if (image == null) {
+            return false;
+        }
+        image = applyOrientation(image, readExifOrientation(source));
+        writeAtomically(scaleToFit(image, bound), target);
+        return true;
+    }
+
+    /**
+     * Decodifica la imagen leyendo primero sus dimensiones. Si pasa de {@code maxDecodedPixels}, o
+     * si es mucho más grande que {@code bound}, se lee sólo una de cada N filas y columnas; se deja
+     * al menos el doble de {@code bound} para que el escalado final conserve la calidad.
+     *
+     * @return null si no hay un decodificador para el formato
+     */
+    private BufferedImage decode(Path source, int bound) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0) {
+                    return null;
+                }
+
+                long pixels = (long) width * height;
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * bound));
+                while (pixels / ((long) subsampling * subsampling) > maxDecodedPixels) {
+                    subsampling++;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    log.debug("Foto de {}x{} decodificada con submuestreo {}", width, height, subsampling);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeAtomically(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".photo-", ".tmp");
+        try {
+            writeProgressiveJpeg(image, temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private void writeProgressiveJpeg(BufferedImage image, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No hay un codificador JPEG disponible");
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            // Sin metadatos: el JPEG resultante no lleva EXIF
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Escala la imagen para que su lado mayor no exceda {@code bound}, reduciendo a la mitad en
+     * varios pasos para conservar calidad. Siempre devuelve una imagen RGB sin transparencia.
+     */
+    private BufferedImage scaleToFit(BufferedImage image, int bound) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) bound / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight
+                || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        boolean swap = false;
+
+        switch (orientation) {
+            case 2 -> { transform.scale(-1, 1); transform.translate(-width, 0); }
+            case 3 -> { transform.translate(width, height); transform.rotate(Math.PI); }
+            case 4 -> { transform.scale(1, -1); transform.translate(0, -height); }
+            case 5 -> { transform.rotate(-Math.PI / 2); transform.scale(-1, 1); swap = true; }
+            case 6 -> { transform.translate(height, 0); transform.rotate(Math.PI / 2); swap = true; }
+            case 7 -> { transform.scale(-1, 1); transform.translate(-height, 0);
+                        transform.translate(0, width); transform.rotate(3 * Math.PI / 2); swap = true; }
+            case 8 -> { transform.translate(0, width); transform.rotate(3 * Math.PI / 2); swap = true; }
+            default -> { return image; }
+        }
+
+        BufferedImage result = new BufferedImage(swap ? height : width, swap ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, result.getWidth(), result.getHeight());
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * Lee la etiqueta de orientación (0x0112) del segmento APP1/EXIF de un JPEG.
+     * Devuelve 1 (normal) si el archivo no es JPEG o no trae la etiqueta.
+     */
+    private int readExifOrientation(Path source) {
+        byte[] data;
+        try (InputStream input = Files.newInputStream(source)) {
+            data = input.readNBytes(EXIF_SCAN_BYTES);
+        } catch (IOException e) {
+            return 1;
+        }
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+
+        int offset = 2;
+        while (offset + 4 <= data.length && (data[offset] & 0xFF) == 0xFF) {
+            int marker = data[offset + 1] & 0xFF;
+            int length = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+            if (marker == 0xE1 && offset + 10 <= data.length
+                    && data[offset + 4] == 'E' && data[offset + 5] == 'x'
+                    && data[offset + 6] == 'i' && data[offset + 7] == 'f') {
+                return readTiffOrientation(data, offset + 10, Math.min(data.length, offset + 2 + length));
+            }
+            if (marker == 0xDA) {
+                break;
+            }
+            offset += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * Busca la orientación en el primer IFD del bloque TIFF que empieza en {@code tiff}. Los
+     * desplazamientos vienen del archivo, así que cualquiera que salga de {@code [tiff, end)}
+     * devuelve 1.
+     */
+    private int readTiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean littleEndian;
+        if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return 1;
+        }
+
+        // Sin signo: un desplazamiento >= 2^31 no debe volverse negativo
+        long ifdOffset = readInt(data, tiff + 4, littleEndian) & 0xFFFFFFFFL;
+        if (ifdOffset < 8 || ifdOffset > end - tiff - 2) {
+            return 1;
+        }
+        int ifd = tiff + (int) ifdOffset;
+        int entries = readShort(data, ifd, littleEndian);
+        if (entries > (end - ifd - 2) / 12) {
+            return 1;
+        }
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                int orientation = readShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private int readInt(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        int b2 = data[offset + 2] & 0xFF;
+        int b3 = data[offset + 3] & 0xFF;
+        return littleEndian
+                ? (b3 << 24) | (b2 << 16) | (b1 << 8) | b0
+                : (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ambu.asistencias.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Formatos de imagen aceptados como foto de asistencia, reconocidos por sus primeros bytes.
+ * No se confía en el nombre ni en el Content-Type que manda el cliente.
+ */
+public enum PhotoSignature {
+    JPEG(".jpg"),
+    PNG(".png"),
+    GIF(".gif"),
+    WEBP(".webp"),
+    HEIF(".heic");
+
+    /** Bytes del inicio del archivo necesarios para reconocer cualquiera de los formatos. */
+    public static final int LENGTH = 12;
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final Set<String> HEIF_BRANDS = Set.of("heic", "heix", "hevc", "heim", "heis", "mif1", "msf1");
+
+    private final String extension;
+
+    PhotoSignature(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Optional<PhotoSignature> detect(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, 0, PNG_MAGIC)) {
+            return Optional.of(PNG);
+        }
+        if (ascii(header, 0, 4).equals("GIF8")) {
+            return Optional.of(GIF);
+        }
+        if (ascii(header, 0, 4).equals("RIFF") && ascii(header, 8, 4).equals("WEBP")) {
+            return Optional.of(WEBP);
+        }
+        if (ascii(header, 4, 4).equals("ftyp") && HEIF_BRANDS.contains(ascii(header, 8, 4))) {
+            return Optional.of(HEIF);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] header, int offset, int length) {
+        return header.length < offset + length ? "" : new String(header, offset, length, StandardCharsets.US_ASCII);
+    }
+}
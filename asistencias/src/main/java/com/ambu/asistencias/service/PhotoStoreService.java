@@ -0,0 +1,583 @@
+package com.ambu.asistencias.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ambu.asistencias.config.ReplicaRoutingDataSource;
+import com.ambu.asistencias.dto.PhotoCleanupResponse;
+import com.ambu.asistencias.dto.PhotoMigrationResponse;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository.PhotoRow;
+import com.ambu.asistencias.repository.PhotoBlobRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Almacén de fotos direccionado por contenido.
+ *
+ * Cada foto se guarda como {@code <upload-dir>/ab/cd/<sha256>.jpg}, donde el hash es el del
+ * contenido subido y se calcula mientras se escribe al disco. Una foto idéntica a otra ya guardada
+ * no se vuelve a procesar ni a escribir: sólo suma una referencia en {@code photo_blobs}.
+ *
+ * Los archivos nunca se borran en el camino de una petición. La limpieza elimina los archivos sin
+ * referencias que no se han tocado en {@code app.photos.store.gc-grace-minutes}; reutilizar un
+ * archivo actualiza su fecha de modificación, así que una subida en curso no pierde su foto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoStoreService {
+
+    private static final int LOCK_STRIPES = 256;
+    private static final int GC_CHUNK_SIZE = 500;
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,10}");
+
+    private final PhotoProcessingService photoProcessingService;
+    private final PhotoBlobRepository photoBlobRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    // Serializa escritura, reutilización y borrado de un mismo hash dentro de esta instancia
+    private final ReentrantLock[] locks = Stream.generate(ReentrantLock::new)
+            .limit(LOCK_STRIPES).toArray(ReentrantLock[]::new);
+
+    @Value("${app.upload.dir:uploads/photos}")
+    private String uploadDir;
+
+    @Value("${app.photos.store.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    @Value("${app.photos.migration.batch-size:500}")
+    private int migrationBatchSize;
+
+    @Value("${app.upload.max-photo-size:10MB}")
+    private DataSize maxPhotoSize;
+
+    @Value("${app.upload.spool:disk}")
+    private Spool spool;
+
+    private DistributionSummary allocationSummary;
+
+    /**
+     * Dónde se acumula una foto mientras se calcula su hash.
+     */
+    public enum Spool {
+        DISK, MEMORY
+    }
+
+    @PostConstruct
+    void init() {
+        // Memoria asignada por el hilo que lee la subida (el procesamiento corre en otro pool)
+        allocationSummary = DistributionSummary.builder("attendance.upload.allocated.bytes")
+                .description("Memoria asignada al leer y acumular una foto subida")
+                .baseUnit("bytes")
+                .tag("spool", spool.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class StoredPhoto {
+        private final String hash;
+        private final String path;
+        private final long sizeBytes;
+        private final Path file;
+    }
+
+    /**
+     * Guarda una foto subida y devuelve su ubicación en el almacén. No abre transacción;
+     * la referencia se registra después con {@link #acquire(StoredPhoto)}.
+     */
+    public StoredPhoto store(MultipartFile photo) {
+        try (InputStream inputStream = photo.getInputStream()) {
+            return store(inputStream);
+        } catch (IOException e) {
+            log.error("Error leyendo la foto de asistencia", e);
+            throw new RuntimeException("No se pudo guardar la foto de asistencia", e);
+        }
+    }
+
+    /**
+     * Guarda una foto leyendo {@code input} una sola vez, sin copia intermedia del contenedor.
+     *
+     * Los primeros bytes deben ser de un formato de {@link PhotoSignature} y el total no puede
+     * exceder {@code app.upload.max-photo-size}; si no, se rechaza sin leer el resto. El hash se
+     * calcula mientras se lee. Con {@code app.upload.spool=disk} el contenido va directo a un
+     * temporal del almacén; con {@code memory} se acumula en memoria (hasta el máximo) y una foto
+     * repetida no llega a escribirse.
+     */
+    public StoredPhoto store(InputStream input) {
+        long allocatedBefore = allocatedBytes();
+        Path temp = null;
+        Path processed = null;
+        try {
+            byte[] header = input.readNBytes(PhotoSignature.LENGTH);
+            PhotoSignature signature = PhotoSignature.detect(header).orElseThrow(() ->
+                    new IllegalArgumentException("La foto debe ser una imagen JPEG, PNG, GIF, WebP o HEIC"));
+            String extension = signature.getExtension();
+
+            Path root = root();
+            Files.createDirectories(root);
+            MessageDigest digest = sha256();
+            InputStream content = new DigestInputStream(new BoundedInputStream(
+                    new SequenceInputStream(new ByteArrayInputStream(header), input), maxPhotoSize.toBytes()), digest);
+
+            byte[] buffered = null;
+            if (spool == Spool.MEMORY) {
+                buffered = content.readAllBytes();
+            } else {
+                // Se escribe en el mismo sistema de archivos para que los move sean atómicos
+                temp = Files.createTempFile(root, ".upload-", ".tmp");
+                Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            Path dir = shardDir(hash);
+            Files.createDirectories(dir);
+            StoredPhoto existing = reuseExisting(dir, hash, extension);
+            if (existing != null) {
+                return existing;
+            }
+
+            // Se procesa sin el lock del hash: decodificar puede tardar hasta el tiempo límite
+            // del procesamiento y el lock es compartido con otros hashes
+            if (temp == null) {
+                temp = Files.write(Files.createTempFile(root, ".upload-", ".tmp"), buffered);
+            }
+            processed = Files.createTempFile(dir, ".processed-", PhotoProcessingService.PHOTO_EXTENSION);
+            boolean decoded = photoProcessingService.process(temp, processed);
+            if (!decoded) {
+                // Formato que no se puede decodificar: se conserva el original tal cual
+                log.warn("No se pudo decodificar la foto {}, se guarda sin procesar", hash);
+            }
+
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                // Otra subida de la misma foto pudo terminar mientras se procesaba esta
+                existing = reuseExisting(dir, hash, extension);
+                if (existing != null) {
+                    return existing;
+                }
+                if (!decoded) {
+                    return stored(hash, Files.move(temp, dir.resolve(hash + extension), StandardCopyOption.ATOMIC_MOVE));
+                }
+                Path target = dir.resolve(hash + PhotoProcessingService.PHOTO_EXTENSION);
+                // La miniatura primero: una foto visible en el almacén siempre tiene la suya
+                Files.move(PhotoProcessingService.thumbnailPath(processed),
+                        PhotoProcessingService.thumbnailPath(target), StandardCopyOption.ATOMIC_MOVE);
+                return stored(hash, Files.move(processed, target, StandardCopyOption.ATOMIC_MOVE));
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            log.error("Error guardando la foto de asistencia", e);
+            throw new RuntimeException("No se pudo guardar la foto de asistencia", e);
+        } finally {
+            // Los temporales ya no existen si se movieron al almacén
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            if (processed != null) {
+                deleteQuietly(processed);
+                deleteQuietly(PhotoProcessingService.thumbnailPath(processed));
+            }
+            long allocatedAfter = allocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                allocationSummary.record(allocatedAfter - allocatedBefore);
+            }
+        }
+    }
+
+    /**
+     * Registra una referencia a la foto. Debe llamarse dentro de la transacción que guarda la asistencia.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquire(StoredPhoto photo) {
+        photoBlobRepository.acquire(photo.getHash(), photo.getPath(), photo.getSizeBytes(), 1, LocalDateTime.now());
+    }
+
+    /**
+     * Quita las referencias de las asistencias de un servidor social, archivadas incluidas,
+     * antes de eliminarlas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseBySocialServer(Long socialServerId) {
+        photoBlobRepository.releaseBySocialServerId(socialServerId);
+        photoBlobRepository.releaseArchivedBySocialServerId(socialServerId);
+    }
+
+    /**
+     * Mueve al almacén las fotos guardadas con el esquema anterior ({@code attendance-<UUID>}
+     * en un solo directorio) y reescribe {@code Attendance.photoPath}.
+     *
+     * Se procesa por bloques de {@code app.photos.migration.batch-size} asistencias: primero se copian
+     * los archivos al almacén (idempotente), luego se actualizan las filas en una transacción por
+     * bloque y sólo después de confirmarla se borran los archivos anteriores. Se puede interrumpir
+     * y volver a ejecutar.
+     *
+     * Las fotos se buscan en {@code attendances}; las asistencias archivadas que comparten una foto
+     * migrada también se reescriben, pero una foto que sólo usa el archivo se queda donde está.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PhotoMigrationResponse migrateLegacyPhotos() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long attendances = 0;
+        long photos = 0;
+        long missing = 0;
+        int batches = 0;
+        long afterId = 0;
+
+        List<PhotoRow> rows;
+        while (!(rows = findLegacyPhotos(afterId)).isEmpty()) {
+            afterId = rows.get(rows.size() - 1).getId();
+            batches++;
+
+            Map<String, StoredPhoto> imported = new LinkedHashMap<>();
+            for (PhotoRow row : rows) {
+                if (imported.containsKey(row.getPhotoPath())) {
+                    continue;
+                }
+                Path legacy = Paths.get(row.getPhotoPath()).toAbsolutePath().normalize();
+                if (!legacy.startsWith(root()) || !Files.isReadable(legacy)) {
+                    log.warn("Foto de la asistencia {} no encontrada, no se migra: {}", row.getId(), row.getPhotoPath());
+                    missing++;
+                    continue;
+                }
+                imported.put(row.getPhotoPath(), importFile(legacy));
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Map.Entry<String, StoredPhoto> entry : imported.entrySet()) {
+                    StoredPhoto photo = entry.getValue();
+                    int references = attendanceRepository.replacePhotoPath(entry.getKey(), photo.getPath())
+                            + archivedAttendanceRepository.replacePhotoPath(entry.getKey(), photo.getPath());
+                    if (references > 0) {
+                        photoBlobRepository.acquire(photo.getHash(), photo.getPath(), photo.getSizeBytes(), references, now);
+                        count += references;
+                    }
+                }
+                return count;
+            });
+            attendances += updated;
+            photos += imported.size();
+
+            imported.forEach((oldPath, photo) -> {
+                Path legacy = Paths.get(oldPath).toAbsolutePath().normalize();
+                if (!legacy.equals(photo.getFile())) {
+                    deleteQuietly(legacy);
+                    deleteQuietly(PhotoProcessingService.thumbnailPath(legacy));
+                }
+            });
+            log.info("Bloque {} de migración de fotos: {} asistencias actualizadas", batches, updated);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Migración de fotos terminada en {} ms: {} asistencias, {} fotos, {} no encontradas",
+                elapsed, attendances, photos, missing);
+        return PhotoMigrationResponse.builder()
+                .attendances(attendances)
+                .photos(photos)
+                .missing(missing)
+                .batches(batches)
+                .elapsedMillis(elapsed)
+                .message("Fotos migradas exitosamente")
+                .build();
+    }
+
+    /**
+     * Elimina las filas sin referencias y los archivos del almacén que no tienen fila,
+     * siempre que no se hayan modificado dentro del periodo de gracia.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PhotoCleanupResponse collectGarbage() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer unreferenced = transactionTemplate.execute(status -> photoBlobRepository.deleteUnreferenced());
+
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(gcGraceMinutes));
+        Map<String, List<Path>> candidates = new LinkedHashMap<>();
+        try {
+            List<Path> shards = Files.isDirectory(root()) ? listShards(root()) : List.of();
+            for (Path first : shards) {
+                for (Path second : listShards(first)) {
+                    try (Stream<Path> files = Files.list(second)) {
+                        files.filter(file -> isOlderThan(file, cutoff))
+                                .filter(file -> file.getFileName().toString().length() >= 64)
+                                .forEach(file -> candidates
+                                        .computeIfAbsent(file.getFileName().toString().substring(0, 64),
+                                                hash -> new ArrayList<>())
+                                        .add(file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error recorriendo el almacén de fotos", e);
+        }
+
+        int deletedFiles = 0;
+        List<String> hashes = new ArrayList<>(candidates.keySet());
+        for (int i = 0; i < hashes.size(); i += GC_CHUNK_SIZE) {
+            List<String> chunk = hashes.subList(i, Math.min(i + GC_CHUNK_SIZE, hashes.size()));
+            // Del primario: borrar un archivo por una réplica atrasada no tiene vuelta atrás
+            Set<String> referenced = new HashSet<>(
+                    ReplicaRoutingDataSource.usePrimary(() -> photoBlobRepository.findExistingHashes(chunk)));
+            for (String hash : chunk) {
+                if (referenced.contains(hash)) {
+                    continue;
+                }
+                ReentrantLock lock = lockFor(hash);
+                lock.lock();
+                try {
+                    for (Path file : candidates.get(hash)) {
+                        // Una subida pudo reutilizarlo mientras tanto
+                        if (isOlderThan(file, cutoff)) {
+                            deleteQuietly(file);
+                            deletedFiles++;
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Limpieza del almacén de fotos terminada en {} ms: {} filas y {} archivos eliminados",
+                elapsed, unreferenced, deletedFiles);
+        return PhotoCleanupResponse.builder()
+                .unreferencedBlobs(unreferenced)
+                .deletedFiles(deletedFiles)
+                .elapsedMillis(elapsed)
+                .message("Limpieza del almacén de fotos completada")
+                .build();
+    }
+
+    private List<PhotoRow> findLegacyPhotos(long afterId) {
+        // Del primario: cada bloque depende de lo que el anterior acaba de confirmar
+        return ReplicaRoutingDataSource.usePrimary(
+                () -> attendanceRepository.findLegacyPhotos(afterId, Limit.of(migrationBatchSize)));
+    }
+
+    private StoredPhoto importFile(Path legacy) {
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(legacy), digest)) {
+                inputStream.transferTo(OutputStream.nullOutputStream());
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = extensionOf(legacy.getFileName().toString());
+
+            Path dir = shardDir(hash);
+            Files.createDirectories(dir);
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                Path existing = findExisting(dir, hash, extension);
+                if (existing != null) {
+                    Files.setLastModifiedTime(existing, FileTime.from(Instant.now()));
+                    return stored(hash, existing);
+                }
+                Path target = dir.resolve(hash + extension);
+                copyAtomically(legacy, target);
+                Path legacyThumbnail = PhotoProcessingService.thumbnailPath(legacy);
+                if (Files.isReadable(legacyThumbnail)) {
+                    copyAtomically(legacyThumbnail, PhotoProcessingService.thumbnailPath(target));
+                }
+                return stored(hash, target);
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error migrando la foto " + legacy, e);
+        }
+    }
+
+    private void copyAtomically(Path source, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".photo-", ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Devuelve la foto ya guardada con ese hash, tocando su fecha para que la limpieza no la borre.
+     */
+    private StoredPhoto reuseExisting(Path dir, String hash, String extension) throws IOException {
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            Path existing = findExisting(dir, hash, extension);
+            if (existing == null) {
+                return null;
+            }
+            log.debug("Foto duplicada {}, se reutiliza el archivo existente", hash);
+            Files.setLastModifiedTime(existing, FileTime.from(Instant.now()));
+            return stored(hash, existing);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path findExisting(Path dir, String hash, String extension) {
+        Path processed = dir.resolve(hash + PhotoProcessingService.PHOTO_EXTENSION);
+        if (Files.exists(processed)) {
+            return processed;
+        }
+        Path original = dir.resolve(hash + extension);
+        return !extension.isEmpty() && Files.exists(original) ? original : null;
+    }
+
+    private StoredPhoto stored(String hash, Path file) throws IOException {
+        String relative = root().relativize(file).toString().replace('\\', '/');
+        return new StoredPhoto(hash, uploadDir + "/" + relative, Files.size(file), file);
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    private Path shardDir(String hash) {
+        return root().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    private List<Path> listShards(Path dir) throws IOException {
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.filter(Files::isDirectory)
+                    .filter(entry -> SHARD.matcher(entry.getFileName().toString()).matches())
+                    .toList();
+        }
+    }
+
+    private boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private String extensionOf(String filename) {
+        int idx = filename.lastIndexOf('.');
+        if (idx <= 0) {
+            return "";
+        }
+        String extension = filename.substring(idx).toLowerCase();
+        return EXTENSION.matcher(extension).matches() ? extension : "";
+    }
+
+    private static long allocatedBytes() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled() ? threads.getCurrentThreadAllocatedBytes() : -1L;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo {}", file, e);
+        }
+    }
+
+    /**
+     * Corta la lectura en cuanto se pasa del tamaño máximo, sin esperar al final de la subida.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long count;
+
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(long n) {
+            count += n;
+            if (count > maxBytes) {
+                throw new MaxUploadSizeExceededException(maxBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ambu.asistencias.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ambu.asistencias.dto.AttendanceDTO;
+import com.ambu.asistencias.dto.ParkPresenceResponse;
+import com.ambu.asistencias.dto.PresenceResponse;
+import com.ambu.asistencias.event.AttendanceRegisteredEvent;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.repository.AttendanceRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registro en memoria de quién está dentro de cada parque en este momento.
+ *
+ * Se actualiza con cada asistencia confirmada y se reconstruye al arrancar a partir de la última
+ * asistencia de cada servidor social. Las lecturas no tocan la base de datos.
+ * Un CHECK_IN más antiguo que {@code app.hours.max-session-hours} se considera una salida olvidada
+ * y deja de reportarse.
+ *
+ * Los eventos sólo llegan de las asistencias que registra esta instancia: con varias instancias,
+ * la presencia de cada una refleja el arranque más sus propios registros, no los de las demás.
+ *
+ * La reconstrucción arma un registro nuevo aparte y lo publica de una sola vez; los eventos que
+ * llegan mientras tanto se aplican al registro vigente y se vuelven a aplicar al nuevo, lo que es
+ * seguro porque una asistencia anterior a la ya aplicada se descarta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceRegistry {
+
+    private final AttendanceRepository attendanceRepository;
+
+    private volatile Presence presence = new Presence();
+
+    // Eventos recibidos durante una reconstrucción, para aplicarlos también al registro nuevo
+    private List<AttendanceDTO> pending;
+
+    @Value("${app.hours.max-session-hours:12}")
+    private long maxSessionHours;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        List<Attendance> openCheckIns;
+        try {
+            openCheckIns = attendanceRepository.findOpenCheckInsSince(cutoff());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        Presence rebuilt = new Presence();
+        openCheckIns.forEach(attendance -> rebuilt.apply(mapToDto(attendance)));
+        List<AttendanceDTO> missed;
+        synchronized (this) {
+            presence = rebuilt;
+            missed = pending;
+            pending = null;
+        }
+        missed.forEach(rebuilt::apply);
+        log.info("Registro de presencia reconstruido con {} servidores sociales presentes ({} eventos reaplicados)",
+                openCheckIns.size(), missed.size());
+    }
+
+    @TransactionalEventListener
+    public void onAttendanceRegistered(AttendanceRegisteredEvent event) {
+        Presence target;
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(event.getAttendance());
+            }
+            target = presence;
+        }
+        target.apply(event.getAttendance());
+    }
+
+    public List<ParkPresenceResponse> getAllPresence() {
+        return presence.presentByPark.keySet().stream()
+                .map(this::getParkPresence)
+                .filter(park -> park.getCount() > 0)
+                .sorted(Comparator.comparing(ParkPresenceResponse::getParkName))
+                .collect(Collectors.toList());
+    }
+
+    public ParkPresenceResponse getParkPresence(Long parkId) {
+        LocalDateTime cutoff = cutoff();
+        Map<Long, AttendanceDTO> present = presence.presentByPark.getOrDefault(parkId, Map.of());
+
+        List<AttendanceDTO> entries = present.values().stream()
+                .filter(entry -> !entry.getTimestamp().isBefore(cutoff))
+                .sorted(Comparator.comparing(AttendanceDTO::getTimestamp))
+                .collect(Collectors.toList());
+
+        return ParkPresenceResponse.builder()
+                .parkId(parkId)
+                .parkName(entries.isEmpty() ? null : entries.get(0).getParkName())
+                .count(entries.size())
+                .socialServers(entries.stream()
+                        .map(entry -> PresenceResponse.builder()
+                                .socialServerId(entry.getSocialServerId())
+                                .email(entry.getSocialServerEmail())
+                                .name(entry.getSocialServerName())
+                                .checkInTime(entry.getTimestamp())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusHours(maxSessionHours);
+    }
+
+    private AttendanceDTO mapToDto(Attendance attendance) {
+        return AttendanceDTO.builder()
+                .id(attendance.getId())
+                .socialServerId(attendance.getSocialServer().getId())
+                .socialServerName(attendance.getSocialServer().getName())
+                .socialServerEmail(attendance.getSocialServer().getEmail())
+                .parkId(attendance.getPark().getId())
+                .parkName(attendance.getPark().getParkName())
+                .timestamp(attendance.getTimestamp())
+                .type(attendance.getType().name())
+                .photoPath(attendance.getPhotoPath())
+                .build();
+    }
+
+    private static class Presence {
+
+        // Última asistencia aplicada por servidor social; sirve para descartar eventos fuera de orden
+        private final Map<Long, AttendanceDTO> lastBySocialServer = new ConcurrentHashMap<>();
+
+        // Servidores sociales presentes por parque
+        private final Map<Long, Map<Long, AttendanceDTO>> presentByPark = new ConcurrentHashMap<>();
+
+        void apply(AttendanceDTO attendance) {
+            // compute serializa las actualizaciones de un mismo servidor social sin bloquear a los demás
+            lastBySocialServer.compute(attendance.getSocialServerId(), (socialServerId, previous) -> {
+                if (previous != null && isOlder(attendance, previous)) {
+                    return previous;
+                }
+                if (previous != null && AttendanceType.CHECK_IN.name().equals(previous.getType())) {
+                    Map<Long, AttendanceDTO> park = presentByPark.get(previous.getParkId());
+                    if (park != null) {
+                        park.remove(socialServerId);
+                    }
+                }
+                if (AttendanceType.CHECK_IN.name().equals(attendance.getType())) {
+                    presentByPark.computeIfAbsent(attendance.getParkId(), parkId -> new ConcurrentHashMap<>())
+                            .put(socialServerId, attendance);
+                }
+                return attendance;
+            });
+        }
+
+        private static boolean isOlder(AttendanceDTO attendance, AttendanceDTO previous) {
+            int byTimestamp = attendance.getTimestamp().compareTo(previous.getTimestamp());
+            return byTimestamp < 0 || (byTimestamp == 0 && attendance.getId() < previous.getId());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ambu.asistencias.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ambu.asistencias.config.CustomUserDetails;
+import com.ambu.asistencias.config.ReplicaRoutingDataSource;
+import com.ambu.asistencias.model.User;
+import com.ambu.asistencias.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Usuarios autenticados por JWT, por correo, para no consultar {@code users} en cada petición.
+ *
+ * Guarda una copia del usuario sin el hash de la contraseña: basta para el rol y el estado activo.
+ * Es un LRU de {@code app.security.principal-cache.size} entradas que caducan a los
+ * {@code app.security.principal-cache.ttl-seconds}; {@link UserService} llama a
+ * {@link #invalidate(String)} al cambiar un usuario y el TTL acota lo que tarda en verse un cambio
+ * hecho desde otra instancia. Una carga que se cruza con una invalidación no se guarda.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private Map<String, Entry> principals;
+
+    @Value("${app.security.principal-cache.size:1000}")
+    private int cacheSize;
+
+    @Value("${app.security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private record Entry(CustomUserDetails principal, long expiresAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        principals = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public UserDetails get(String email) throws UsernameNotFoundException {
+        long now = System.nanoTime();
+        Entry entry = lookup(email);
+        if (entry != null && now - entry.expiresAt() < 0) {
+            return entry.principal();
+        }
+
+        long loadedGeneration = generation.get();
+        User user = ReplicaRoutingDataSource.usePrimary(() -> userRepository.findByEmail(email))
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
+        CustomUserDetails principal = new CustomUserDetails(User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .role(user.getRole())
+                .registrationDate(user.getRegistrationDate())
+                .active(user.getActive())
+                .build());
+        store(email, new Entry(principal, now + TimeUnit.SECONDS.toNanos(ttlSeconds)), loadedGeneration);
+        return principal;
+    }
+
+    /**
+     * Descarta al usuario al confirmarse la transacción en curso, o de inmediato si no hay una.
+     */
+    public void invalidate(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(email);
+                }
+            });
+        } else {
+            evict(email);
+        }
+    }
+
+    private synchronized Entry lookup(String email) {
+        return principals.get(email);
+    }
+
+    private synchronized void store(String email, Entry entry, long loadedGeneration) {
+        if (generation.get() == loadedGeneration) {
+            principals.put(email, entry);
+        }
+    }
+
+    private synchronized void evict(String email) {
+        generation.incrementAndGet();
+        principals.remove(email);
+        log.debug("Usuario {} descartado del caché de sesiones", email);
+    }
+}
@@ -0,0 +1,259 @@
+package com.ambu.asistencias.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.dto.HoursRebuildResponse;
+import com.ambu.asistencias.dto.ServiceHoursResponse;
+import com.ambu.asistencias.exception.ResourceNotFoundException;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.ServiceHoursLedger;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository.TimelineEntry;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository.HoursView;
+import com.ambu.asistencias.repository.SocialServerRepository;
+import com.ambu.asistencias.service.AttendanceStateService.SessionState;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ledger de horas de servicio por servidor social.
+ *
+ * Cada CHECK_IN abre una sesión y el siguiente CHECK_OUT la cierra sumando sus minutos al total.
+ * Las asistencias nuevas se validan con {@link AttendanceStateService}; al recalcular desde el
+ * historial, un CHECK_OUT sin sesión abierta se ignora y un segundo CHECK_IN reemplaza la sesión
+ * abierta. Las sesiones más largas que {@code app.hours.max-session-hours} se descartan (salida olvidada).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ServiceHoursService {
+
+    private final ServiceHoursLedgerRepository ledgerRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final SocialServerRepository socialServerRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AttendanceStateService attendanceStateService;
+
+    @Value("${app.hours.max-session-hours:12}")
+    private long maxSessionHours;
+
+    @Value("${app.hours.rebuild.chunk-size:200}")
+    private int rebuildChunkSize;
+
+    @Value("${app.hours.rebuild.parallelism:4}")
+    private int rebuildParallelism;
+
+    /**
+     * Actualiza el ledger con una asistencia recién registrada. Debe llamarse dentro de la
+     * transacción que guarda la asistencia; la fila del ledger se bloquea para serializar
+     * registros simultáneos del mismo servidor social.
+     *
+     * @return minutos de la sesión que cerró esta asistencia, o null si no cerró ninguna
+     * @throws com.ambu.asistencias.exception.InvalidAttendanceStateException si la asistencia no es
+     *         una transición válida desde el estado del ledger
+     */
+    public Long recordAttendance(Attendance attendance) {
+        Long socialServerId = attendance.getSocialServer().getId();
+        ServiceHoursLedger ledger = ledgerRepository.findForUpdate(socialServerId)
+                .orElseGet(() -> newLedger(socialServerId));
+        attendanceStateService.validate(SessionState.of(ledger), attendance.getType(), attendance.getTimestamp());
+
+        Long sessionMinutes = apply(ledger, attendance.getType(), attendance.getTimestamp());
+        ledger.setUpdatedAt(LocalDateTime.now());
+        ledgerRepository.save(ledger);
+        return sessionMinutes;
+    }
+
+    /**
+     * Minutos de una sesión entre un CHECK_IN y su CHECK_OUT, o null si la sesión no cuenta
+     * (no hay CHECK_IN abierto, orden inválido o excede el máximo permitido).
+     */
+    public Long sessionMinutes(LocalDateTime openCheckIn, LocalDateTime checkOut) {
+        if (openCheckIn == null) {
+            return null;
+        }
+        Duration session = Duration.between(openCheckIn, checkOut);
+        if (session.isNegative() || session.toHours() >= maxSessionHours) {
+            return null;
+        }
+        return session.toMinutes();
+    }
+
+    /**
+     * Bloquea las filas del ledger de estos servidores sociales y devuelve su estado de sesión.
+     * Los servidores sin ledger no aparecen en el mapa.
+     */
+    public Map<Long, SessionState> lockSessionStates(Collection<Long> socialServerIds) {
+        return ledgerRepository.findAllForUpdate(socialServerIds).stream()
+                .collect(Collectors.toMap(ServiceHoursLedger::getSocialServerId, SessionState::of));
+    }
+
+    public void createLedger(Long socialServerId) {
+        ledgerRepository.save(newLedger(socialServerId));
+    }
+
+    public void deleteLedger(Long socialServerId) {
+        ledgerRepository.deleteById(socialServerId);
+        attendanceStateService.invalidate(List.of(socialServerId));
+    }
+
+    @Transactional(readOnly = true)
+    public ServiceHoursResponse getHours(Long socialServerId) {
+        HoursView view = ledgerRepository.findHoursBySocialServerId(socialServerId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "No se encontró un servidor social con el ID: " + socialServerId));
+        return mapToResponse(view);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ServiceHoursResponse> getAllHours() {
+        return ledgerRepository.findAllHours().stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recalcula el ledger completo a partir de las asistencias, archivadas incluidas.
+     * Los servidores sociales se reparten en bloques que se procesan en paralelo, cada uno en su
+     * propia transacción: se bloquean las filas del ledger del bloque, se lee su historial de las dos
+     * tablas y se reescriben los totales.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HoursRebuildResponse rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<Long> socialServerIds = socialServerRepository.findAllIds();
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < socialServerIds.size(); i += rebuildChunkSize) {
+            chunks.add(socialServerIds.subList(i, Math.min(i + rebuildChunkSize, socialServerIds.size())));
+        }
+        log.info("Recalculando horas de {} servidores sociales en {} bloques", socialServerIds.size(), chunks.size());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, rebuildParallelism));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Long> chunk : chunks) {
+                futures.add(executor.submit(() -> transactionTemplate.executeWithoutResult(
+                        status -> rebuildChunk(chunk))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió el recálculo de horas", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error recalculando las horas de servicio", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        attendanceStateService.invalidateAll();
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Recálculo de horas terminado en {} ms", elapsed);
+        return HoursRebuildResponse.builder()
+                .socialServers(socialServerIds.size())
+                .chunks(chunks.size())
+                .elapsedMillis(elapsed)
+                .message("Horas de servicio recalculadas exitosamente")
+                .build();
+    }
+
+    private void rebuildChunk(List<Long> socialServerIds) {
+        Map<Long, ServiceHoursLedger> ledgers = new HashMap<>();
+        ledgerRepository.findAllForUpdate(socialServerIds)
+                .forEach(ledger -> ledgers.put(ledger.getSocialServerId(), ledger));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Long socialServerId : socialServerIds) {
+            ServiceHoursLedger ledger = ledgers.computeIfAbsent(socialServerId, this::newLedger);
+            ledger.setAccruedMinutes(0L);
+            ledger.setCompletedSessions(0);
+            ledger.setOpenCheckIn(null);
+            ledger.setLastAttendanceAt(null);
+            ledger.setUpdatedAt(now);
+        }
+
+        // Ambas listas ya vienen ordenadas; el orden estable deja lo archivado antes en un empate
+        List<TimelineEntry> timeline = new ArrayList<>(
+                archivedAttendanceRepository.findTimelineBySocialServerIds(socialServerIds));
+        timeline.addAll(attendanceRepository.findTimelineBySocialServerIds(socialServerIds));
+        timeline.sort(Comparator.comparing(TimelineEntry::getSocialServerId)
+                .thenComparing(TimelineEntry::getTimestamp));
+
+        for (TimelineEntry entry : timeline) {
+            apply(ledgers.get(entry.getSocialServerId()), entry.getType(), entry.getTimestamp());
+        }
+
+        ledgerRepository.saveAll(ledgers.values());
+    }
+
+    private Long apply(ServiceHoursLedger ledger, AttendanceType type, LocalDateTime timestamp) {
+        ledger.setLastAttendanceAt(timestamp);
+        if (type == AttendanceType.CHECK_IN) {
+            ledger.setOpenCheckIn(timestamp);
+            return null;
+        }
+
+        Long minutes = sessionMinutes(ledger.getOpenCheckIn(), timestamp);
+        ledger.setOpenCheckIn(null);
+        if (minutes != null) {
+            ledger.setAccruedMinutes(ledger.getAccruedMinutes() + minutes);
+            ledger.setCompletedSessions(ledger.getCompletedSessions() + 1);
+        }
+        return minutes;
+    }
+
+    private ServiceHoursLedger newLedger(Long socialServerId) {
+        return ServiceHoursLedger.builder()
+                .socialServerId(socialServerId)
+                .accruedMinutes(0L)
+                .completedSessions(0)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private ServiceHoursResponse mapToResponse(HoursView view) {
+        long accruedMinutes = view.getAccruedMinutes() != null ? view.getAccruedMinutes() : 0L;
+        double hoursCompleted = accruedMinutes / 60.0;
+        double hoursRemaining = Math.max(0, view.getTotalHoursRequired() - hoursCompleted);
+
+        return ServiceHoursResponse.builder()
+                .socialServerId(view.getSocialServerId())
+                .email(view.getEmail())
+                .name(view.getName())
+                .totalHoursRequired(view.getTotalHoursRequired())
+                .accruedMinutes(accruedMinutes)
+                .hoursCompleted(hoursCompleted)
+                .hoursRemaining(hoursRemaining)
+                .completedSessions(view.getCompletedSessions() != null ? view.getCompletedSessions() : 0)
+                .openCheckIn(view.getOpenCheckIn())
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import com.ambu.asistencias.exception.ResourceAlreadyExistsException;
 import com.ambu.asistencias.exception.ResourceNotFoundException;
 import com.ambu.asistencias.model.Park;
 import com.ambu.asistencias.model.SocialServer;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
 import com.ambu.asistencias.repository.ParkRepository;
 import com.ambu.asistencias.repository.SocialServerRepository;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +25,11 @@ public class SocialServerService {
 
     private final SocialServerRepository socialServerRepository;
     private final ParkRepository parkRepository;
+    private final ArchivedAttendanceRepository archivedAttendanceRepository;
+    private final ServiceHoursService serviceHoursService;
+    private final PhotoStoreService photoStoreService;
 
+    @Transactional(readOnly = true)
     public List<SocialServerResponse> getAllSocialServers() {
         List<SocialServer> socialServers = socialServerRepository.findAll();
         return socialServers.stream()
@@ -32,8 +37,9 @@ public class SocialServerService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public SocialServerResponse getSocialServerById(Long id) {
-        SocialServer socialServer = socialServerRepository.findById(id)
+        SocialServer socialServer = socialServerRepository.findWithParkById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No se encontró un servidor social con el ID: " + id));
         return mapToResponse(socialServer);
@@ -73,6 +79,7 @@ public class SocialServerService {
                 .build();
 
         SocialServer savedSocialServer = socialServerRepository.save(socialServer);
+        serviceHoursService.createLedger(savedSocialServer.getId());
         log.info("Servidor social creado exitosamente con ID: {}", savedSocialServer.getId());
 
         return mapToResponse(savedSocialServer, "Servidor social creado exitosamente");
@@ -129,6 +136,10 @@ public class SocialServerService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No se encontró un servidor social con el ID: " + id));
 
+        serviceHoursService.deleteLedger(id);
+        photoStoreService.releaseBySocialServer(id);
+        // El archivo no tiene llaves foráneas: sus asistencias se borran aparte
+        archivedAttendanceRepository.deleteBySocialServerId(id);
         socialServerRepository.delete(socialServer);
         log.info("Servidor social eliminado exitosamente con ID: {}", id);
     }
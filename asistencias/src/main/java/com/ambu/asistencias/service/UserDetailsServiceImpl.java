@@ -4,16 +4,21 @@ import com.ambu.asistencias.config.CustomUserDetails;
 import com.ambu.asistencias.model.User;
 import com.ambu.asistencias.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -22,5 +27,19 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return new CustomUserDetails(user);
     }
-}
 
+    /**
+     * Guarda el hash recalculado al iniciar sesión cuando cambia el costo de BCrypt.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + userDetails.getUsername()));
+        user.setPasswordHash(newPassword);
+        principalCache.invalidate(user.getEmail());
+        log.info("Hash de contraseña actualizado al costo configurado para {}", user.getEmail());
+
+        return new CustomUserDetails(user);
+    }
+}
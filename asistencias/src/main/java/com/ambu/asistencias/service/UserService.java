@@ -20,6 +20,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     public UserResponse createUser(UserRequest request) {
         // Verificar si el email ya existe
@@ -38,6 +39,7 @@ public class UserService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        principalCache.invalidate(savedUser.getEmail());
 
         return UserResponse.builder()
                 .id(savedUser.getId())
@@ -49,11 +51,13 @@ public class UserService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public User findByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con email: " + email));
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(user -> UserResponse.builder()
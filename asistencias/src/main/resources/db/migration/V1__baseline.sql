@@ -0,0 +1,104 @@
+-- Esquema tal como lo generaba spring.jpa.hibernate.ddl-auto=create antes de usar migraciones.
+-- El generador de ids de attendances depende del motor: ver db/vendor/<motor>/V1_1__*.sql
+
+CREATE TABLE parks (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    abbreviation VARCHAR(50) NOT NULL,
+    park_name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_parks_abbreviation UNIQUE (abbreviation),
+    CONSTRAINT uk_parks_park_name UNIQUE (park_name)
+);
+
+CREATE TABLE social_servers (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    park_id BIGINT NOT NULL,
+    school VARCHAR(100) NOT NULL,
+    program VARCHAR(100) NOT NULL,
+    start_time TIME(6) NOT NULL,
+    end_time TIME(6) NOT NULL,
+    total_hours_required INTEGER NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_social_servers_email UNIQUE (email),
+    CONSTRAINT fk_social_servers_park FOREIGN KEY (park_id) REFERENCES parks (id)
+);
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    role ENUM ('ADMIN','SUPER_ADMIN') NOT NULL,
+    registration_date DATETIME(6) NOT NULL,
+    active BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE attendances (
+    id BIGINT NOT NULL,
+    social_server_id BIGINT NOT NULL,
+    park_id BIGINT NOT NULL,
+    timestamp DATETIME(6) NOT NULL,
+    type ENUM ('CHECK_IN','CHECK_OUT') NOT NULL,
+    photo_path VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Los índices compuestos van antes que las llaves foráneas para que MySQL los reutilice en lugar
+-- de crear un índice propio sobre la columna sola.
+CREATE INDEX idx_attendances_timestamp_id ON attendances (timestamp, id);
+CREATE INDEX idx_attendances_server_timestamp ON attendances (social_server_id, timestamp, id);
+CREATE INDEX idx_attendances_park_timestamp ON attendances (park_id, timestamp, id);
+
+ALTER TABLE attendances
+    ADD CONSTRAINT fk_attendances_social_server FOREIGN KEY (social_server_id) REFERENCES social_servers (id);
+ALTER TABLE attendances
+    ADD CONSTRAINT fk_attendances_park FOREIGN KEY (park_id) REFERENCES parks (id);
+
+CREATE TABLE attendance_idempotency_keys (
+    idempotency_key VARCHAR(100) NOT NULL,
+    attendance_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
+
+CREATE TABLE service_hours_ledger (
+    social_server_id BIGINT NOT NULL,
+    accrued_minutes BIGINT NOT NULL,
+    completed_sessions INTEGER NOT NULL,
+    open_check_in DATETIME(6),
+    last_attendance_at DATETIME(6),
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (social_server_id)
+);
+
+CREATE TABLE park_daily_stats (
+    park_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    check_ins BIGINT NOT NULL,
+    check_outs BIGINT NOT NULL,
+    distinct_servers BIGINT NOT NULL,
+    completed_sessions BIGINT NOT NULL,
+    session_minutes BIGINT NOT NULL,
+    PRIMARY KEY (stat_date, park_id)
+);
+
+CREATE TABLE park_daily_servers (
+    park_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    social_server_id BIGINT NOT NULL,
+    PRIMARY KEY (stat_date, park_id, social_server_id)
+);
+
+CREATE TABLE photo_blobs (
+    hash VARCHAR(64) NOT NULL,
+    path VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (hash),
+    CONSTRAINT idx_photo_blobs_path UNIQUE (path)
+);
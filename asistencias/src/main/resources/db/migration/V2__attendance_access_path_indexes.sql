@@ -0,0 +1,3 @@
+-- Reemplazo de rutas de foto durante la migración al almacén por contenido
+-- (UPDATE attendances ... WHERE photo_path = ?), que sin índice recorre la tabla por cada foto.
+CREATE INDEX idx_attendances_photo_path ON attendances (photo_path);
@@ -0,0 +1,15 @@
+-- Generación de las estadísticas diarias. Cada asistencia guarda la generación vigente al
+-- registrarse, leída con un lock compartido sobre esta fila; el backfill la incrementa con un lock
+-- exclusivo al borrar las estadísticas. Así las asistencias de generaciones anteriores son
+-- exactamente las que confirmaron antes del borrado, sin importar el orden de sus ids.
+CREATE TABLE park_stats_epoch (
+    id INT NOT NULL,
+    epoch BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO park_stats_epoch (id, epoch) VALUES (1, 0);
+
+ALTER TABLE attendances ADD COLUMN stats_epoch BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE attendances_archive ADD COLUMN stats_epoch BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- Huella (SHA-256 en hexadecimal) de la solicitud con la que se usó cada Idempotency-Key: un
+-- reintento con la misma llave y otros datos se rechaza. Las llaves anteriores quedan sin huella.
+ALTER TABLE attendance_idempotency_keys ADD COLUMN payload_hash VARCHAR(64);
+
+-- Limpieza periódica de las llaves vencidas
+CREATE INDEX idx_attendance_idempotency_keys_created_at ON attendance_idempotency_keys (created_at);
@@ -0,0 +1,159 @@
+package com.ambu.asistencias.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.ambu.asistencias.model.User;
+import com.ambu.asistencias.repository.UserRepository;
+
+/**
+ * Verifica el login contra {@link BoundedPasswordEncoder}: un hash con otro costo se rehace al
+ * costo configurado (10 por defecto) en el primer login exitoso, y con el pool de BCrypt saturado
+ * el login responde 503 en lugar de esperar o de reportar credenciales inválidas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BoundedPasswordEncoderTests {
+
+    private static final String EMAIL = "admin-bcrypt@example.com";
+    private static final String PASSWORD = "contraseña-de-prueba";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        userRepository.save(User.builder()
+                .email(EMAIL)
+                .name("Admin BCrypt")
+                .passwordHash(new BCryptPasswordEncoder(4).encode(PASSWORD))
+                .role(User.Role.ADMIN)
+                .registrationDate(LocalDateTime.now())
+                .active(true)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void loginRehashesAnOutdatedCost() throws Exception {
+        login().andExpect(status().isOk());
+
+        String rehashed = userRepository.findByEmail(EMAIL).orElseThrow().getPasswordHash();
+        assertThat(rehashed).startsWith("$2a$10$");
+        assertThat(passwordEncoder.matches(PASSWORD, rehashed)).isTrue();
+
+        // Con el costo al día el hash ya no cambia
+        login().andExpect(status().isOk());
+        assertThat(userRepository.findByEmail(EMAIL).orElseThrow().getPasswordHash()).isEqualTo(rehashed);
+    }
+
+    @Test
+    void saturatedPoolRejectsLoginWith503() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        int workers = (int) ReflectionTestUtils.getField(passwordEncoder, "workers");
+        int queueCapacity = (int) ReflectionTestUtils.getField(passwordEncoder, "queueCapacity");
+        String hash = userRepository.findByEmail(EMAIL).orElseThrow().getPasswordHash();
+
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(workers + queueCapacity);
+        List<CompletableFuture<Boolean>> blocked = new ArrayList<>();
+        try {
+            // Cada verificación bloquea su hilo de BCrypt hasta que se libera el latch
+            for (int i = 0; i < workers + queueCapacity; i++) {
+                blocked.add(CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.matches(new BlockingPassword(PASSWORD, release), hash), callers));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while ((executor.getActiveCount() < workers || executor.getQueue().remainingCapacity() > 0)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(executor.getQueue().remainingCapacity()).isZero();
+
+            login().andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+
+        for (CompletableFuture<Boolean> verification : blocked) {
+            assertThat(verification.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        login().andExpect(status().isOk());
+    }
+
+    private ResultActions login() throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"));
+    }
+
+    /**
+     * Contraseña que BCrypt no puede leer hasta que se libera el latch.
+     */
+    private record BlockingPassword(String value, CountDownLatch release) implements CharSequence {
+
+        @Override
+        public int length() {
+            return unblocked().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return unblocked().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return unblocked().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return unblocked();
+        }
+
+        private String unblocked() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        }
+    }
+}
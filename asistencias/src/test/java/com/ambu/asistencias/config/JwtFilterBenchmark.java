@@ -0,0 +1,179 @@
+package com.ambu.asistencias.config;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ambu.asistencias.model.User;
+import com.ambu.asistencias.repository.UserRepository;
+import com.ambu.asistencias.service.PrincipalCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Costo de {@link JwtAuthenticationFilter} por petición autenticada.
+ *
+ * {@code legacy} reproduce el filtro anterior: llave y parser nuevos en cada lectura y tres
+ * verificaciones de firma por petición. {@code singleParse} verifica una vez sin caché de tokens y
+ * {@code cached} es el filtro actual con el mismo token repetido. El usuario siempre sale de
+ * {@link PrincipalCache}, así que sólo se mide el JWT.
+ *
+ * Se ejecuta con {@code main} sobre el classpath de pruebas:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) \
+ *     com.ambu.asistencias.config.JwtFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-for-asistencias-0123456789abcdef";
+    private static final String EMAIL = "admin@ambu.mx";
+
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter singleParseFilter;
+    private LegacyFilter legacyFilter;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        PrincipalCache principalCache = principalCache();
+        JwtService cachedJwt = jwtService(1000);
+        cachedFilter = new JwtAuthenticationFilter(cachedJwt, principalCache);
+        singleParseFilter = new JwtAuthenticationFilter(jwtService(0), principalCache);
+        legacyFilter = new LegacyFilter(principalCache);
+        authorization = "Bearer " + cachedJwt.generateToken(principalCache.get(EMAIL), Map.of("role", "ADMIN"));
+    }
+
+    @Benchmark
+    public Object legacy() throws Exception {
+        return run(legacyFilter::doFilter);
+    }
+
+    @Benchmark
+    public Object singleParse() throws Exception {
+        return run(singleParseFilter::doFilter);
+    }
+
+    @Benchmark
+    public Object cached() throws Exception {
+        return run(cachedFilter::doFilter);
+    }
+
+    private Object run(FilterCall filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/presence");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    private static JwtService jwtService(int verifiedCacheSize) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", verifiedCacheSize);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static PrincipalCache principalCache() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .name("Admin")
+                .passwordHash("x")
+                .role(User.Role.ADMIN)
+                .active(true)
+                .registrationDate(LocalDateTime.now())
+                .build()));
+        PrincipalCache principalCache = new PrincipalCache(userRepository);
+        ReflectionTestUtils.setField(principalCache, "cacheSize", 1000);
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(principalCache, "init");
+        return principalCache;
+    }
+
+    @FunctionalInterface
+    private interface FilterCall {
+        void doFilter(MockHttpServletRequest request, MockHttpServletResponse response, MockFilterChain chain)
+                throws Exception;
+    }
+
+    /**
+     * El filtro y la verificación de {@link JwtService} como estaban antes del parser compartido.
+     */
+    private static final class LegacyFilter {
+
+        private final PrincipalCache principalCache;
+
+        LegacyFilter(PrincipalCache principalCache) {
+            this.principalCache = principalCache;
+        }
+
+        void doFilter(MockHttpServletRequest request, MockHttpServletResponse response, MockFilterChain chain)
+                throws Exception {
+            String jwt = request.getHeader("Authorization").substring(7);
+            String userEmail = parse(jwt).getSubject();
+            UserDetails userDetails = principalCache.get(userEmail);
+            boolean valid = parse(jwt).getSubject().equals(userDetails.getUsername())
+                    && !parse(jwt).getExpiration().before(new Date());
+            if (valid) {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+            }
+            chain.doFilter(request, response);
+        }
+
+        private Claims parse(String token) {
+            SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.ambu.asistencias.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Verifica el enrutamiento de lecturas con dos bases H2 en memoria: una hace de primario y otra de
+ * réplica. El atraso de la réplica se simula con la tabla {@code replica_lag}.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=jdbc:h2:mem:asistencias-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.lag-query=SELECT seconds_behind FROM replica_lag",
+        "app.datasource.replica.lag-column=seconds_behind",
+        "app.datasource.replica.max-lag-seconds=5",
+        "app.datasource.replica.lag-check-seconds=3600"
+})
+class ReplicaRoutingTests {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        mark(new JdbcTemplate(primaryDataSource), "primary");
+        JdbcTemplate replica = mark(new JdbcTemplate(replicaDataSource), "replica");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds_behind BIGINT)");
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replicaLagMonitor.refresh();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(replicaLagMonitor.isAvailable()).isTrue();
+        assertThat(currentDatabase(true)).isEqualTo("replica");
+        assertThat(currentDatabase(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void usePrimaryOverridesReadOnly() {
+        assertThat(ReplicaRoutingDataSource.usePrimary(() -> currentDatabase(true))).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replicaDataSource).update("UPDATE replica_lag SET seconds_behind = 60");
+        replicaLagMonitor.refresh();
+
+        assertThat(replicaLagMonitor.isAvailable()).isFalse();
+        assertThat(currentDatabase(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void stoppedReplicationFallsBackToPrimary() {
+        new JdbcTemplate(replicaDataSource).update("UPDATE replica_lag SET seconds_behind = NULL");
+        replicaLagMonitor.refresh();
+
+        assertThat(currentDatabase(true)).isEqualTo("primary");
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                (String) entityManager.createNativeQuery("SELECT name FROM routing_marker").getSingleResult());
+    }
+
+    private static JdbcTemplate mark(JdbcTemplate jdbcTemplate, String name) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS routing_marker (name VARCHAR(20))");
+        jdbcTemplate.update("DELETE FROM routing_marker");
+        jdbcTemplate.update("INSERT INTO routing_marker VALUES (?)", name);
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,154 @@
+package com.ambu.asistencias.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.repository.SqlRecorder.RecordedStatement;
+
+/**
+ * Verifica con {@code EXPLAIN} que las consultas frecuentes sobre el esquema de las migraciones
+ * usen los índices pensados para ellas. Se explica el SQL que Hibernate genera para cada método del
+ * repositorio, grabado con {@link SqlRecorder} junto con los parámetros de la llamada. Con las
+ * tablas vacías el planificador no distingue entre índices, así que se cargan datos con una
+ * distribución parecida a la real antes de pedir cada plan.
+ *
+ * H2 ordena los joins sin tomar en cuenta el {@code LIMIT}: para un rango de fechas puede recorrer
+ * los parques y leer el rango de cada uno en su índice (parque, timestamp, id), así que ese caso
+ * sólo exige que se lea un rango de timestamp y no la tabla completa.
+ */
+@SpringBootTest
+@Import(SqlRecorder.class)
+class IndexUsageTests {
+
+    private static final int PARKS = 10;
+    private static final int SERVERS = 200;
+    private static final int ATTENDANCES = 20_000;
+    private static final LocalDateTime CURSOR = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ParkDailyStatsRepository statsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        jdbcTemplate.update("""
+                INSERT INTO parks (id, park_name, abbreviation)
+                SELECT x, CONCAT('Parque ', x), CONCAT('P', x) FROM SYSTEM_RANGE(1, ?) AS r (x)
+                """, PARKS);
+        jdbcTemplate.update("""
+                INSERT INTO social_servers (id, email, name, park_id, school, program, start_time, end_time,
+                                            total_hours_required)
+                SELECT x, CONCAT('servidor', x, '@example.com'), CONCAT('Servidor ', x), MOD(x, ?) + 1,
+                       'Escuela', 'Programa', TIME '08:00:00', TIME '14:00:00', 480
+                FROM SYSTEM_RANGE(1, ?) AS r (x)
+                """, PARKS, SERVERS);
+        jdbcTemplate.update("""
+                INSERT INTO attendances (id, social_server_id, park_id, timestamp, type, photo_path)
+                SELECT x, MOD(x, ?) + 1, MOD(MOD(x, ?) + 1, ?) + 1,
+                       DATEADD(MINUTE, x * 7, TIMESTAMP '2024-01-01 08:00:00'),
+                       CASE WHEN MOD(x / ?, 2) = 0 THEN 'CHECK_IN' ELSE 'CHECK_OUT' END,
+                       CONCAT('uploads/photos/', x, '.jpg')
+                FROM SYSTEM_RANGE(1, ?) AS r (x)
+                """, SERVERS, SERVERS, PARKS, SERVERS, ATTENDANCES);
+        jdbcTemplate.update("""
+                INSERT INTO park_daily_stats (park_id, stat_date, check_ins, check_outs, distinct_servers,
+                                              completed_sessions, session_minutes)
+                SELECT MOD(x, ?) + 1, DATEADD(DAY, x / ?, DATE '2024-01-01'), 10, 10, 5, 10, 600
+                FROM SYSTEM_RANGE(0, 3649) AS r (x)
+                """, PARKS, PARKS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM park_daily_stats");
+        jdbcTemplate.update("DELETE FROM attendances");
+        jdbcTemplate.update("DELETE FROM social_servers");
+        jdbcTemplate.update("DELETE FROM parks");
+    }
+
+    @Test
+    void pageOfOneServerUsesServerTimestampIndex() {
+        assertThat(plan(() -> attendanceRepository.findPage(
+                1L, null, null, null, null, CURSOR, (long) ATTENDANCES, Limit.of(51))))
+                .contains("idx_attendances_server_timestamp: social_server_id = ?");
+    }
+
+    @Test
+    void pageOfOneParkUsesParkTimestampIndex() {
+        assertThat(plan(() -> attendanceRepository.findPage(
+                null, 1L, null, null, null, CURSOR, (long) ATTENDANCES, Limit.of(51))))
+                .contains("idx_attendances_park_timestamp: park_id = ?");
+    }
+
+    @Test
+    void dateRangeReadsTimestampRange() {
+        assertThat(plan(() -> attendanceRepository.findPage(
+                null, null, null, LocalDateTime.of(2024, 1, 10, 0, 0), LocalDateTime.of(2024, 1, 11, 0, 0),
+                null, null, Limit.of(51))))
+                .containsPattern("idx_attendances_\\w+: [^*]*timestamp >= \\?")
+                .doesNotContain("attendances.tablescan");
+    }
+
+    @Test
+    void presenceRebuildUsesServerTimestampIndex() {
+        // El NOT EXISTS busca una asistencia posterior del mismo servidor
+        assertThat(plan(() -> attendanceRepository.findOpenCheckInsSince(CURSOR)))
+                .contains("idx_attendances_server_timestamp: social_server_id = ss1_0.id");
+    }
+
+    @Test
+    void photoPathRewriteUsesPhotoPathIndex() {
+        assertThat(plan(() -> new TransactionTemplate(transactionManager).execute(status ->
+                attendanceRepository.replacePhotoPath("uploads/photos/1.jpg", "uploads/photos/nuevo.jpg"))))
+                .contains("idx_attendances_photo_path: photo_path = ?");
+    }
+
+    @Test
+    void dashboardReadsStatDateRangeOfPrimaryKey() {
+        // La llave primaria (stat_date, park_id) resuelve el rango sin un índice aparte
+        assertThat(plan(() -> statsRepository.findDashboard(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null)))
+                .contains("stat_date >= ?")
+                .doesNotContain("park_daily_stats.tablescan");
+    }
+
+    /**
+     * Plan de la única sentencia que ejecuta {@code call}, con los parámetros con que se ejecutó.
+     */
+    private String plan(Runnable call) {
+        List<RecordedStatement> recorded;
+        SqlRecorder.start();
+        try {
+            call.run();
+        } finally {
+            recorded = SqlRecorder.stop();
+        }
+        assertThat(recorded).hasSize(1);
+        RecordedStatement statement = recorded.get(0);
+        return jdbcTemplate.queryForObject("EXPLAIN " + statement.sql(), String.class, statement.arguments())
+                .toLowerCase();
+    }
+}
@@ -0,0 +1,113 @@
+package com.ambu.asistencias.repository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Graba las sentencias que prepara el hilo actual junto con sus parámetros, para revisar el SQL
+ * que genera Hibernate en lugar de uno escrito a mano. Se activa con {@code @Import} y se usa
+ * entre {@link #start()} y {@link #stop()}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class SqlRecorder {
+
+    private static final ThreadLocal<List<RecordedStatement>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Sentencia preparada con sus parámetros por posición.
+     */
+    record RecordedStatement(String sql, Map<Integer, Object> parameters) {
+
+        Object[] arguments() {
+            return parameters.values().toArray();
+        }
+    }
+
+    static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    static List<RecordedStatement> stop() {
+        List<RecordedStatement> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded == null ? List.of() : recorded;
+    }
+
+    @Bean
+    static BeanPostProcessor sqlRecordingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)) {
+                    return new RecordingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class RecordingDataSource extends DelegatingDataSource {
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private static Connection recording(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                List<RecordedStatement> recorded = RECORDED.get();
+                if (recorded == null || !method.getName().equals("prepareStatement")) {
+                    return result;
+                }
+                RecordedStatement statement = new RecordedStatement((String) args[0], new TreeMap<>());
+                recorded.add(statement);
+                return proxy(PreparedStatement.class, (PreparedStatement) result, (set, setArgs, setResult) -> {
+                    if (set.getName().startsWith("set") && setArgs != null && setArgs.length >= 2
+                            && setArgs[0] instanceof Integer index) {
+                        statement.parameters().put(index, set.getName().equals("setNull") ? null : setArgs[1]);
+                    }
+                    return setResult;
+                });
+            });
+        }
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object[] args, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+        return type.cast(Proxy.newProxyInstance(SqlRecorder.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    try {
+                        return afterCall.apply(method, args, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+}
@@ -0,0 +1,129 @@
+package com.ambu.asistencias.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ambu.asistencias.dto.AttendanceArchiveResponse;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.Park;
+import com.ambu.asistencias.model.SocialServer;
+import com.ambu.asistencias.repository.ArchivedAttendanceRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.ParkRepository;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository;
+import com.ambu.asistencias.repository.SocialServerRepository;
+import com.ambu.asistencias.service.AttendanceArchiveService.Semester;
+
+/**
+ * Verifica que el archivado mueva sólo los semestres cerrados y que lo archivado siga contando
+ * para las horas de servicio. La exportación histórica usa el fetch size de streaming de MySQL,
+ * que H2 no acepta, así que no se cubre aquí.
+ */
+@SpringBootTest
+class AttendanceArchiveTests {
+
+    @Autowired
+    private AttendanceArchiveService attendanceArchiveService;
+
+    @Autowired
+    private ServiceHoursService serviceHoursService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ArchivedAttendanceRepository archivedAttendanceRepository;
+
+    @Autowired
+    private SocialServerRepository socialServerRepository;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private ServiceHoursLedgerRepository ledgerRepository;
+
+    private SocialServer server;
+    private Attendance oldCheckIn;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        Park park = parkRepository.save(Park.builder()
+                .parkName("Parque Archivo")
+                .abbreviation("PA")
+                .build());
+        server = socialServerRepository.save(SocialServer.builder()
+                .email("archivo@example.com")
+                .name("Servidor Archivo")
+                .park(park)
+                .school("Escuela")
+                .program("Programa")
+                .startTime(LocalTime.of(8, 0))
+                .endTime(LocalTime.of(14, 0))
+                .totalHoursRequired(480)
+                .build());
+
+        // Una sesión de 2 h hace dos años y otra de 3 h hoy
+        LocalDateTime old = LocalDate.now().minusYears(2).atTime(8, 0);
+        LocalDateTime recent = LocalDate.now().atTime(8, 0);
+        oldCheckIn = save(park, old, AttendanceType.CHECK_IN);
+        save(park, old.plusHours(2), AttendanceType.CHECK_OUT);
+        save(park, recent, AttendanceType.CHECK_IN);
+        save(park, recent.plusHours(3), AttendanceType.CHECK_OUT);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        archivedAttendanceRepository.deleteAllInBatch();
+        attendanceRepository.deleteAllInBatch();
+        ledgerRepository.deleteAllInBatch();
+        socialServerRepository.deleteAll();
+        parkRepository.deleteAll();
+    }
+
+    @Test
+    void movesOnlyClosedSemesters() {
+        AttendanceArchiveResponse response = attendanceArchiveService.archiveClosedSemesters();
+
+        assertThat(response.getAttendances()).isEqualTo(2);
+        assertThat(response.getSemesters()).startsWith(Semester.of(oldCheckIn.getTimestamp().toLocalDate()).toString());
+        assertThat(attendanceRepository.count()).isEqualTo(2);
+        assertThat(archivedAttendanceRepository.findById(oldCheckIn.getId()))
+                .hasValueSatisfying(archived -> {
+                    assertThat(archived.getTimestamp()).isEqualTo(oldCheckIn.getTimestamp());
+                    assertThat(archived.getSocialServerId()).isEqualTo(server.getId());
+                });
+
+        // Volver a ejecutarlo no mueve nada más
+        assertThat(attendanceArchiveService.archiveClosedSemesters().getAttendances()).isZero();
+    }
+
+    @Test
+    void archivedAttendancesStillCountForServiceHours() {
+        attendanceArchiveService.archiveClosedSemesters();
+
+        serviceHoursService.rebuildAll();
+        assertThat(serviceHoursService.getHours(server.getId()).getAccruedMinutes()).isEqualTo(5 * 60);
+    }
+
+    private Attendance save(Park park, LocalDateTime timestamp, AttendanceType type) {
+        return attendanceRepository.save(Attendance.builder()
+                .socialServer(server)
+                .park(park)
+                .timestamp(timestamp)
+                .type(type)
+                .photoPath("uploads/photos/test.jpg")
+                .build());
+    }
+}
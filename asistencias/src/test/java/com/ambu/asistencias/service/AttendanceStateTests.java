@@ -0,0 +1,121 @@
+package com.ambu.asistencias.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ambu.asistencias.exception.InvalidAttendanceStateException;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.ServiceHoursLedger;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository;
+import com.ambu.asistencias.service.AttendanceStateService.SessionState;
+
+/**
+ * Verifica las transiciones de la máquina de estados de asistencia y que un estado en memoria
+ * atrasado respecto al ledger (otra instancia registró después) se recargue antes de rechazar.
+ * Usa los valores por defecto: ventana de duplicados de 10 minutos y sesiones de hasta 12 horas.
+ */
+@SpringBootTest
+class AttendanceStateTests {
+
+    private static final Long SOCIAL_SERVER_ID = 9_001L;
+
+    @Autowired
+    private AttendanceStateService attendanceStateService;
+
+    @Autowired
+    private ServiceHoursLedgerRepository ledgerRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAllInBatch();
+        attendanceStateService.invalidateAll();
+    }
+
+    @Test
+    void validatesTransitions() {
+        LocalDateTime now = LocalDateTime.now();
+        SessionState open = SessionState.EMPTY.next(AttendanceType.CHECK_IN, now.minusHours(1));
+
+        assertThatThrownBy(() -> attendanceStateService.validate(SessionState.EMPTY, AttendanceType.CHECK_OUT, now))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+        assertThatCode(() -> attendanceStateService.validate(open, AttendanceType.CHECK_OUT, now))
+                .doesNotThrowAnyException();
+        // Otra entrada fuera de la ventana de duplicados cierra implícitamente la anterior
+        assertThatCode(() -> attendanceStateService.validate(open, AttendanceType.CHECK_IN, now))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> attendanceStateService.validate(open, AttendanceType.CHECK_IN, now.minusMinutes(55)))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+        // Anterior a la última asistencia registrada
+        assertThatThrownBy(() -> attendanceStateService.validate(open, AttendanceType.CHECK_OUT, now.minusHours(2)))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+        // Una entrada más antigua que el máximo de sesión es una salida olvidada
+        SessionState forgotten = SessionState.EMPTY.next(AttendanceType.CHECK_IN, now.minusHours(13));
+        assertThatThrownBy(() -> attendanceStateService.validate(forgotten, AttendanceType.CHECK_OUT, now))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+    }
+
+    @Test
+    void registerAppliesTransitionsInOrder() {
+        assertThat(register(AttendanceType.CHECK_IN)).isEqualTo("CHECK_IN");
+        assertThatThrownBy(() -> register(AttendanceType.CHECK_IN))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+        assertThat(register(AttendanceType.CHECK_OUT)).isEqualTo("CHECK_OUT");
+        assertThatThrownBy(() -> register(AttendanceType.CHECK_OUT))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+    }
+
+    @Test
+    void staleCachedStateIsReloadedBeforeRejecting() {
+        register(AttendanceType.CHECK_IN);
+
+        // Otra instancia registró la salida: el ledger ya no tiene la sesión abierta
+        ledgerRepository.save(ServiceHoursLedger.builder()
+                .socialServerId(SOCIAL_SERVER_ID)
+                .lastAttendanceAt(LocalDateTime.now())
+                .build());
+
+        assertThat(register(AttendanceType.CHECK_IN)).isEqualTo("CHECK_IN");
+    }
+
+    @Test
+    void freshlyLoadedStateRejectsWithoutRetrying() {
+        // Otra instancia registró la entrada hace un minuto
+        ledgerRepository.save(ServiceHoursLedger.builder()
+                .socialServerId(SOCIAL_SERVER_ID)
+                .openCheckIn(LocalDateTime.now().minusMinutes(1))
+                .lastAttendanceAt(LocalDateTime.now().minusMinutes(1))
+                .build());
+
+        assertThatThrownBy(() -> register(AttendanceType.CHECK_IN))
+                .isInstanceOf(InvalidAttendanceStateException.class);
+    }
+
+    private String register(AttendanceType type) {
+        return attendanceStateService.register(SOCIAL_SERVER_ID, type, saveLedger(type));
+    }
+
+    /**
+     * Como la transacción de registro, deja el ledger con la asistencia aplicada.
+     */
+    private Function<LocalDateTime, String> saveLedger(AttendanceType type) {
+        return timestamp -> {
+            ledgerRepository.save(ServiceHoursLedger.builder()
+                    .socialServerId(SOCIAL_SERVER_ID)
+                    .openCheckIn(type == AttendanceType.CHECK_IN ? timestamp : null)
+                    .lastAttendanceAt(timestamp)
+                    .build());
+            return type.name();
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package com.ambu.asistencias.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ambu.asistencias.dto.AttendanceRequest;
+import com.ambu.asistencias.dto.AttendanceResponse;
+import com.ambu.asistencias.exception.IdempotencyKeyMismatchException;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.Park;
+import com.ambu.asistencias.model.SocialServer;
+import com.ambu.asistencias.repository.AttendanceIdempotencyKeyRepository;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.ParkRepository;
+import com.ambu.asistencias.repository.ServiceHoursLedgerRepository;
+import com.ambu.asistencias.repository.SocialServerRepository;
+import com.ambu.asistencias.service.PhotoStoreService.StoredPhoto;
+
+/**
+ * Verifica que un reintento con la misma Idempotency-Key devuelva la asistencia original sin
+ * guardar otra foto ni insertar otra fila, y que una llave reutilizada con otros datos se rechace.
+ * Las carreras entre instancias se simulan confirmando el registro de la "otra" instancia mientras
+ * se guarda la foto, que es cuando la petición ya buscó la llave y aún no abre su transacción.
+ */
+@SpringBootTest
+class IdempotencyTests {
+
+    private static final StoredPhoto PHOTO =
+            new StoredPhoto("0".repeat(64), "uploads/photos/test.jpg", 1L, Path.of("test.jpg"));
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceStateService attendanceStateService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private SocialServerRepository socialServerRepository;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private ServiceHoursLedgerRepository ledgerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Park park;
+    private SocialServer server;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        park = parkRepository.save(Park.builder()
+                .parkName("Parque Idempotencia")
+                .abbreviation("PI")
+                .build());
+        server = socialServerRepository.save(SocialServer.builder()
+                .email("idempotencia@example.com")
+                .name("Servidor Idempotencia")
+                .park(park)
+                .school("Escuela")
+                .program("Programa")
+                .startTime(LocalTime.of(8, 0))
+                .endTime(LocalTime.of(14, 0))
+                .totalHoursRequired(480)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        idempotencyKeyRepository.deleteAllInBatch();
+        attendanceRepository.deleteAllInBatch();
+        ledgerRepository.deleteAllInBatch();
+        socialServerRepository.deleteAll();
+        parkRepository.deleteAll();
+        attendanceStateService.invalidateAll();
+    }
+
+    @Test
+    void retryIsAnsweredFromCacheWithoutReadingThePhoto() {
+        String key = UUID.randomUUID().toString();
+        AttendanceResponse original = attendanceService.registerAttendance(request("CHECK_IN"), () -> PHOTO, key);
+
+        AttendanceResponse retry = attendanceService.registerAttendance(request("CHECK_IN"), () -> {
+            throw new AssertionError("Un reintento no debe leer la foto");
+        }, key);
+
+        assertThat(retry.getId()).isEqualTo(original.getId());
+        assertThat(attendanceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void keyReusedWithAnotherRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        attendanceService.registerAttendance(request("CHECK_IN"), () -> PHOTO, key);
+
+        assertThatThrownBy(() -> attendanceService.registerAttendance(request("CHECK_OUT"), () -> PHOTO, key))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(attendanceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateKeyFromAnotherInstanceReturnsItsAttendance() {
+        String key = UUID.randomUUID().toString();
+        Attendance other = attendanceRepository.save(Attendance.builder()
+                .socialServer(server)
+                .park(park)
+                .timestamp(LocalDateTime.now())
+                .type(AttendanceType.CHECK_IN)
+                .photoPath(PHOTO.getPath())
+                .build());
+
+        // La otra instancia confirma la llave después de que esta petición la buscó
+        AttendanceResponse response = attendanceService.registerAttendance(request("CHECK_IN"), () -> {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idempotencyKeyRepository.insert(key, other.getId(), null, LocalDateTime.now()));
+            return PHOTO;
+        }, key);
+
+        assertThat(response.getId()).isEqualTo(other.getId());
+        assertThat(attendanceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void ledgerRejectionFromAnotherInstanceReturnsItsAttendance() {
+        String key = UUID.randomUUID().toString();
+
+        // La otra instancia registra la misma entrada y su llave mientras esta guarda la foto;
+        // la entrada repetida se rechaza por el estado y se responde con la de la otra
+        AttendanceResponse response = attendanceService.registerAttendance(request("CHECK_IN"), () -> {
+            AttendanceResponse other = attendanceService.registerAttendance(request("CHECK_IN"), () -> PHOTO, null);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idempotencyKeyRepository.insert(key, other.getId(), null, LocalDateTime.now()));
+            return PHOTO;
+        }, key);
+
+        assertThat(attendanceRepository.count()).isEqualTo(1);
+        assertThat(response.getId()).isEqualTo(attendanceRepository.findAll().get(0).getId());
+    }
+
+    @Test
+    void duplicateWaitsForTheRequestInFlight() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache();
+        ReflectionTestUtils.setField(cache, "cacheSize", 10);
+        ReflectionTestUtils.setField(cache, "waitSeconds", 10L);
+        cache.init();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger actions = new AtomicInteger();
+        AttendanceResponse registered = AttendanceResponse.builder().id(42L).build();
+        Supplier<AttendanceResponse> action = () -> {
+            actions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return registered;
+        };
+
+        CompletableFuture<AttendanceResponse> original =
+                CompletableFuture.supplyAsync(() -> cache.execute("llave", "huella", () -> null, action));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<AttendanceResponse> duplicate =
+                CompletableFuture.supplyAsync(() -> cache.execute("llave", "huella", () -> null, action));
+
+        // La duplicada espera mientras la original siga en proceso
+        Thread.sleep(200);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS)).isSameAs(registered);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(registered);
+        assertThat(actions).hasValue(1);
+
+        assertThatThrownBy(() -> cache.execute("llave", "otra", () -> null, action))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    private AttendanceRequest request(String type) {
+        return AttendanceRequest.builder()
+                .id(server.getId())
+                .parkId(park.getId())
+                .type(type)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ambu.asistencias.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ambu.asistencias.config.CustomUserDetails;
+import com.ambu.asistencias.config.JwtService;
+import com.ambu.asistencias.model.User;
+import com.ambu.asistencias.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifica que las peticiones autenticadas por JWT lean al usuario de {@link PrincipalCache} y no
+ * de {@code users} en cada petición, y que una invalidación obligue a volver a consultarlo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PrincipalCacheTests {
+
+    private static final String EMAIL = "admin-cache@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(User.builder()
+                .email(EMAIL)
+                .name("Admin Caché")
+                .passwordHash("sin-uso-en-esta-prueba")
+                .role(User.Role.ADMIN)
+                .registrationDate(LocalDateTime.now())
+                .active(true)
+                .build());
+        token = jwtService.generateToken(new CustomUserDetails(user), Map.of("role", user.getRole().name()));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+        principalCache.invalidate(EMAIL);
+    }
+
+    @Test
+    void authenticatedRequestsLoadTheUserOnce() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            listSocialServers();
+        }
+
+        assertThat(userLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatedUserIsLoadedAgain() throws Exception {
+        listSocialServers();
+        principalCache.invalidate(EMAIL);
+        listSocialServers();
+        listSocialServers();
+
+        assertThat(userLoads()).isEqualTo(2);
+    }
+
+    private void listSocialServers() throws Exception {
+        mockMvc.perform(get("/api/servidores-sociales").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    private long userLoads() {
+        return statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+    }
+}
@@ -0,0 +1,139 @@
+package com.ambu.asistencias.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ambu.asistencias.dto.AttendanceFilter;
+import com.ambu.asistencias.dto.AttendancePageResponse;
+import com.ambu.asistencias.model.Attendance;
+import com.ambu.asistencias.model.Attendance.AttendanceType;
+import com.ambu.asistencias.model.Park;
+import com.ambu.asistencias.model.SocialServer;
+import com.ambu.asistencias.repository.AttendanceRepository;
+import com.ambu.asistencias.repository.ParkRepository;
+import com.ambu.asistencias.repository.SocialServerRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifica que los endpoints de listado y detalle ejecuten un número fijo de sentencias SQL,
+ * sin importar cuántas filas devuelvan (sin N+1 por asociaciones LAZY).
+ */
+@SpringBootTest
+class QueryCountTests {
+
+    private static final int SERVERS = 3;
+    private static final int ATTENDANCES_PER_SERVER = 4;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private SocialServerService socialServerService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private SocialServerRepository socialServerRepository;
+
+    @Autowired
+    private ParkRepository parkRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private SocialServer firstServer;
+    private Attendance firstAttendance;
+
+    @BeforeEach
+    void setUp() {
+        attendanceRepository.deleteAll();
+        socialServerRepository.deleteAll();
+        parkRepository.deleteAll();
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 8, 0);
+        for (int s = 0; s < SERVERS; s++) {
+            Park park = parkRepository.save(Park.builder()
+                    .parkName("Parque " + s)
+                    .abbreviation("P" + s)
+                    .build());
+            SocialServer server = socialServerRepository.save(SocialServer.builder()
+                    .email("servidor" + s + "@example.com")
+                    .name("Servidor " + s)
+                    .park(park)
+                    .school("Escuela")
+                    .program("Programa")
+                    .startTime(LocalTime.of(8, 0))
+                    .endTime(LocalTime.of(14, 0))
+                    .totalHoursRequired(480)
+                    .build());
+            if (s == 0) {
+                firstServer = server;
+            }
+            for (int a = 0; a < ATTENDANCES_PER_SERVER; a++) {
+                Attendance attendance = attendanceRepository.save(Attendance.builder()
+                        .socialServer(server)
+                        .park(park)
+                        .timestamp(base.plusDays(a).plusMinutes(s))
+                        .type(a % 2 == 0 ? AttendanceType.CHECK_IN : AttendanceType.CHECK_OUT)
+                        .photoPath("uploads/photos/test.jpg")
+                        .build());
+                if (s == 0 && a == 0) {
+                    firstAttendance = attendance;
+                }
+            }
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void attendancePageRunsSingleStatement() {
+        AttendancePageResponse page = attendanceService.getAttendances(new AttendanceFilter());
+
+        assertThat(page.getItems()).hasSize(SERVERS * ATTENDANCES_PER_SERVER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void attendanceByIdRunsSingleStatement() {
+        attendanceService.getAttendanceById(firstAttendance.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void attendancesBySocialServerRunTwoStatements() {
+        assertThat(attendanceService.getAttendancesBySocialServerId(firstServer.getId()))
+                .hasSize(ATTENDANCES_PER_SERVER);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void socialServerListRunsSingleStatement() {
+        assertThat(socialServerService.getAllSocialServers()).hasSize(SERVERS);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void socialServerByIdRunsSingleStatement() {
+        socialServerService.getSocialServerById(firstServer.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -6,7 +6,8 @@ import './AttendanceList.css';
 
 const AttendanceList = ({ attendances, onUserClick, showUserColumn = true }) => {
 
-  const getPhotoUrl = (photoPath) => {
+  // size: 'thumb' | 'medium' | 'full'; las versiones reducidas pesan unos KB
+  const getPhotoUrl = (photoPath, size = 'medium') => {
     if (!photoPath) return null;
     // Si ya es una URL completa, retornarla
     if (photoPath.startsWith('http')) return photoPath;
@@ -14,7 +15,7 @@ const AttendanceList = ({ attendances, onUserClick, showUserColumn = true }) =>
     // El photoPath viene de la BD como "uploads/photos/filename.jpg"
     // El endpoint espera: /api/admin/photos/uploads/photos/filename.jpg
     // Así que simplemente concatenamos el path tal cual viene
-    return `${PHOTOS_BASE_URL}/${photoPath}`;
+    return `${PHOTOS_BASE_URL}/${photoPath}?size=${size}`;
   };
 
   const handleViewPhoto = (photoPath) => {
@@ -78,7 +79,7 @@ const AttendanceList = ({ attendances, onUserClick, showUserColumn = true }) =>
                   {showUserColumn && (
                     <td>
                       <button
-                        onClick={() => onUserClick && onUserClick(attendance.email, attendance.socialServerName)}
+                        onClick={() => onUserClick && onUserClick(attendance)}
                         className="user-link"
                       >
                         {attendance.socialServerName}
@@ -1,52 +1,38 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useSearchParams } from 'react-router-dom';
 import Layout from '../../components/Layout';
 import AttendanceList from '../../components/admin/AttendanceList';
 import { attendanceService } from '../../services/attendanceService';
 import { socialServerService } from '../../services/socialServerService';
+import { subscribeToAttendances } from '../../services/attendanceStream';
 import './AttendancesPage.css';
 
 const AttendancesPage = () => {
   const [searchParams, setSearchParams] = useSearchParams();
-  const [allAttendances, setAllAttendances] = useState([]);
-  const [filteredAttendances, setFilteredAttendances] = useState([]);
+  const [attendances, setAttendances] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [selectedUser, setSelectedUser] = useState(null);
-  const [viewMode, setViewMode] = useState('all'); // 'all' or 'user'
 
   const servidorId = searchParams.get('servidor');
-  const emailParam = searchParams.get('email');
+  const viewMode = servidorId ? 'user' : 'all';
 
-  useEffect(() => {
-    loadAttendances();
-  }, []);
+  // El filtro vigente, para los eventos del stream que llegan fuera del ciclo de render
+  const servidorIdRef = useRef(servidorId);
+  servidorIdRef.current = servidorId;
 
-  useEffect(() => {
-    if (servidorId) {
-      loadUserAttendances(servidorId);
-    } else if (emailParam) {
-      // Filtrar por email si viene como parámetro
-      const userAttendances = allAttendances.filter((a) => a.email === emailParam);
-      setFilteredAttendances(userAttendances);
-      setViewMode('user');
-      const attendance = allAttendances.find((a) => a.email === emailParam);
-      if (attendance) {
-        setSelectedUser({ email: attendance.email, name: attendance.socialServerName });
-      }
-    } else {
-      setViewMode('all');
-      setSelectedUser(null);
-      setFilteredAttendances(allAttendances);
-    }
-  }, [servidorId, emailParam, allAttendances]);
+  // El servidor filtra y pagina; la lista sólo muestra las páginas que ya se pidieron
+  const filterParams = (socialServerId) => (socialServerId ? { socialServerId } : {});
 
-  const loadAttendances = async () => {
+  const loadAttendances = async (socialServerId = servidorIdRef.current) => {
     try {
       setLoading(true);
-      const data = await attendanceService.getAll();
-      setAllAttendances(data);
-      setFilteredAttendances(data);
+      setError('');
+      const page = await attendanceService.getAll(filterParams(socialServerId));
+      setAttendances(page.items);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       setError('Error al cargar las asistencias. Por favor, recarga la página.');
       console.error('Error loading attendances:', err);
@@ -55,54 +41,68 @@ const AttendancesPage = () => {
     }
   };
 
-  const loadUserAttendances = async (socialServerId) => {
+  useEffect(() => {
+    loadAttendances(servidorId);
+  }, [servidorId]);
+
+  // Nombre y correo del servidor cuando se entra directo con ?servidor=
+  useEffect(() => {
+    if (!servidorId) {
+      setSelectedUser(null);
+      return;
+    }
+    if (selectedUser && String(selectedUser.id) === servidorId) {
+      return;
+    }
+    socialServerService
+      .getById(servidorId)
+      .then((server) => setSelectedUser({ id: server.id, email: server.email, name: server.name }))
+      .catch((err) => console.error('Error loading social server:', err));
+  }, [servidorId]);
+
+  // Las nuevas asistencias llegan por SSE en lugar de volver a pedir la lista completa
+  useEffect(() => {
+    const unsubscribe = subscribeToAttendances({
+      onAttendance: (attendance) => {
+        const current = servidorIdRef.current;
+        if (current && String(attendance.socialServerId) !== current) {
+          return;
+        }
+        setAttendances((prev) =>
+          prev.some((a) => a.id === attendance.id) ? prev : [attendance, ...prev]
+        );
+      },
+      onResync: () => loadAttendances(),
+    });
+    return unsubscribe;
+  }, []);
+
+  const loadMoreAttendances = async () => {
+    if (!nextCursor) return;
     try {
-      setLoading(true);
-      setViewMode('user');
-      const data = await attendanceService.getBySocialServerId(parseInt(socialServerId));
-      setFilteredAttendances(data);
+      setLoadingMore(true);
+      const page = await attendanceService.getAll({ ...filterParams(servidorId), cursor: nextCursor });
+      setAttendances((prev) => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
     } catch (err) {
-      setError('Error al cargar las asistencias del usuario.');
-      console.error('Error loading user attendances:', err);
+      setError('Error al cargar más asistencias.');
+      console.error('Error loading more attendances:', err);
     } finally {
-      setLoading(false);
+      setLoadingMore(false);
     }
   };
 
-  const handleUserClick = async (email, userName) => {
-    try {
-      // Intentar obtener el ID del servidor social por email
-      const socialServers = await socialServerService.getAll();
-      const socialServer = socialServers.find((s) => s.email === email);
-      
-      if (socialServer && socialServer.id) {
-        // Usar el endpoint específico con el ID
-        setSelectedUser({ email, name: userName, id: socialServer.id });
-        setSearchParams({ servidor: socialServer.id });
-        await loadUserAttendances(socialServer.id);
-      } else {
-        // Fallback: filtrar por email
-        setSelectedUser({ email, name: userName });
-        setSearchParams({ email: email });
-        const userAttendances = allAttendances.filter((a) => a.email === email);
-        setFilteredAttendances(userAttendances);
-        setViewMode('user');
-      }
-    } catch (err) {
-      // Fallback: filtrar por email
-      setSelectedUser({ email, name: userName });
-      setSearchParams({ email: email });
-      const userAttendances = allAttendances.filter((a) => a.email === email);
-      setFilteredAttendances(userAttendances);
-      setViewMode('user');
-    }
+  const handleUserClick = (attendance) => {
+    setSelectedUser({
+      id: attendance.socialServerId,
+      email: attendance.email,
+      name: attendance.socialServerName,
+    });
+    setSearchParams({ servidor: attendance.socialServerId });
   };
 
   const handleBackToAll = () => {
     setSearchParams({});
-    setSelectedUser(null);
-    setViewMode('all');
-    setFilteredAttendances(allAttendances);
   };
 
   if (loading) {
@@ -118,7 +118,7 @@ const AttendancesPage = () => {
       <div className="attendances-page">
         <div className="page-header">
           <h1>Asistencias</h1>
-          {viewMode === 'user' && selectedUser && (
+          {viewMode === 'user' && (
             <button onClick={handleBackToAll} className="btn-back">
               ← Volver a todas las asistencias
             </button>
@@ -135,14 +135,21 @@ const AttendancesPage = () => {
         {error && <div className="error-message">{error}</div>}
 
         <AttendanceList
-          attendances={filteredAttendances}
+          attendances={attendances}
           onUserClick={viewMode === 'all' ? handleUserClick : null}
           showUserColumn={viewMode === 'all'}
         />
+
+        {nextCursor && (
+          <div className="load-more">
+            <button onClick={loadMoreAttendances} className="btn-load-more" disabled={loadingMore}>
+              {loadingMore ? 'Cargando...' : 'Cargar más'}
+            </button>
+          </div>
+        )}
       </div>
     </Layout>
   );
 };
 
 export default AttendancesPage;
-
@@ -1,8 +1,9 @@
 import api from './api';
 
 export const attendanceService = {
-  getAll: async () => {
-    const response = await api.get('/asistencias');
+  // Devuelve una página { items, nextCursor }. Filtros: socialServerId, parkId, type, from, to, cursor, size
+  getAll: async (params = {}) => {
+    const response = await api.get('/asistencias', { params });
     return response.data;
   },
 
@@ -11,11 +12,6 @@ export const attendanceService = {
     return response.data;
   },
 
-  getBySocialServerId: async (socialServerId) => {
-    const response = await api.get(`/asistencias/servidor-social/${socialServerId}`);
-    return response.data;
-  },
-
   register: async (attendanceData, photo) => {
     const formData = new FormData();
     formData.append('id', attendanceData.id);
@@ -26,6 +22,8 @@ export const attendanceService = {
     const response = await api.post('/asistencias', formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
+        // El servidor limita la tasa por parque antes de leer el formulario
+        'X-Park-Id': attendanceData.parkId,
       },
     });
     return response.data;
@@ -0,0 +1,94 @@
+import { API_BASE_URL } from '../utils/constants';
+import { authService } from './authService';
+
+const RECONNECT_INITIAL_DELAY_MS = 1000;
+const RECONNECT_MAX_DELAY_MS = 30000;
+
+// EventSource no permite enviar el header Authorization, así que el stream SSE se lee con fetch.
+// Si el servidor cierra el stream (timeout) o se cae la red, se reconecta con espera exponencial y
+// se llama a onResync, porque los eventos de mientras estuvo desconectado se perdieron.
+// Devuelve una función para cerrar la suscripción.
+export const subscribeToAttendances = ({ parkId, onAttendance, onResync }) => {
+  const controller = new AbortController();
+  const url = new URL(`${API_BASE_URL}/admin/asistencias/stream`);
+  if (parkId) {
+    url.searchParams.set('parkId', parkId);
+  }
+
+  const dispatch = (block) => {
+    let event = 'message';
+    const data = [];
+    block.split('\n').forEach((line) => {
+      if (line.startsWith('event:')) {
+        event = line.slice(6).trim();
+      } else if (line.startsWith('data:')) {
+        data.push(line.slice(5).trim());
+      }
+    });
+
+    if (event === 'attendance' && data.length > 0) {
+      const attendance = JSON.parse(data.join('\n'));
+      onAttendance && onAttendance({ ...attendance, email: attendance.socialServerEmail });
+    } else if (event === 'resync') {
+      onResync && onResync();
+    }
+  };
+
+  let connections = 0;
+  let delay = RECONNECT_INITIAL_DELAY_MS;
+  let retryTimer = null;
+
+  const onConnected = () => {
+    delay = RECONNECT_INITIAL_DELAY_MS;
+    connections += 1;
+    if (connections > 1) {
+      onResync && onResync();
+    }
+  };
+
+  const read = async () => {
+    const response = await fetch(url, {
+      headers: { Authorization: `Bearer ${authService.getToken()}` },
+      signal: controller.signal,
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Error al conectar con el stream de asistencias: ${response.status}`);
+    }
+
+    onConnected();
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) break;
+      buffer += decoder.decode(value, { stream: true });
+      let separator;
+      while ((separator = buffer.indexOf('\n\n')) >= 0) {
+        dispatch(buffer.slice(0, separator));
+        buffer = buffer.slice(separator + 2);
+      }
+    }
+  };
+
+  const connect = () => {
+    read()
+      .catch((err) => {
+        if (err.name !== 'AbortError') {
+          console.error('Stream de asistencias cerrado:', err);
+        }
+      })
+      .finally(() => {
+        if (controller.signal.aborted) return;
+        retryTimer = setTimeout(connect, delay);
+        delay = Math.min(delay * 2, RECONNECT_MAX_DELAY_MS);
+      });
+  };
+
+  connect();
+
+  return () => {
+    clearTimeout(retryTimer);
+    controller.abort();
+  };
+};